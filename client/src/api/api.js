@@ -1,6 +1,11 @@
 const API_BASE = '/api';
 
+// Last ETag and payload per resource, used for If-None-Match revalidation and If-Match writes
+const validators = new Map();
+
 async function request(endpoint, options = {}) {
+    const { ifMatch, cacheKey, ...fetchOptions } = options;
+    const cached = fetchOptions.method === 'GET' ? validators.get(endpoint) : undefined;
     const defaults = {
         headers: {
             'Content-Type': 'application/json',
@@ -9,10 +14,12 @@ async function request(endpoint, options = {}) {
 
     const config = {
         ...defaults,
-        ...options,
+        ...fetchOptions,
         headers: {
             ...defaults.headers,
-            ...options.headers,
+            ...(cached ? { 'If-None-Match': cached.etag } : {}),
+            ...(ifMatch ? { 'If-Match': ifMatch } : {}),
+            ...fetchOptions.headers,
         },
     };
 
@@ -22,6 +29,10 @@ async function request(endpoint, options = {}) {
 
     const response = await fetch(`${API_BASE}${endpoint}`, config);
 
+    if (response.status === 304 && cached) {
+        return cached.payload;
+    }
+
     if (!response.ok) {
         // Attempt to parse error message if available
         let errorMessage = `API Error: ${response.statusText}`;
@@ -31,17 +42,77 @@ async function request(endpoint, options = {}) {
         } catch (e) {
             // Ignore json parse error
         }
-        throw new Error(errorMessage);
+        const error = new Error(errorMessage);
+        error.status = response.status;
+        throw error;
     }
 
     const data = await response.json();
     // Unwraps the ApiResponse<T>. Structure is { status, payload, message, timestamp }
-    return data.payload !== undefined ? data.payload : data;
+    const payload = data.payload !== undefined ? data.payload : data;
+    const key = fetchOptions.method === 'GET' ? endpoint : cacheKey;
+    if (key) {
+        const etag = response.headers.get('ETag');
+        if (etag) {
+            validators.set(key, { etag, payload });
+        } else {
+            validators.delete(key);
+        }
+    }
+    return payload;
 }
 
 export const api = {
     get: (endpoint) => request(endpoint, { method: 'GET' }),
-    post: (endpoint, body) => request(endpoint, { method: 'POST', body }),
-    put: (endpoint, body) => request(endpoint, { method: 'PUT', body }),
-    delete: (endpoint, body) => request(endpoint, { method: 'DELETE', body }),
+    post: (endpoint, body, options) => request(endpoint, { ...options, method: 'POST', body }),
+    put: (endpoint, body, options) => request(endpoint, { ...options, method: 'PUT', body }),
+    delete: (endpoint, body, options) => request(endpoint, { ...options, method: 'DELETE', body }),
+    etag: (endpoint) => validators.get(endpoint)?.etag,
 };
+
+// Local mirror of every ticket, refreshed incrementally from the change feed
+const ticketMirror = { seq: 0, tickets: new Map() };
+
+export async function syncTickets() {
+    const changes = await api.get(`/tickets/changes?since=${ticketMirror.seq}`);
+    if (changes.reset) {
+        ticketMirror.tickets.clear();
+        (changes.archived || []).forEach(summary => ticketMirror.tickets.set(summary.id, summary));
+    }
+    changes.tickets.forEach(ticket => ticketMirror.tickets.set(ticket.id, ticket));
+    changes.removed.forEach(id => ticketMirror.tickets.delete(id));
+    ticketMirror.seq = changes.seq;
+    return [...ticketMirror.tickets.values()];
+}
+
+const TICKET_EVENT_TYPES = [
+    'TICKET_CREATED',
+    'TICKET_UPDATED',
+    'TICKET_MOVED',
+    'TICKET_REMOVED',
+    'KITCHEN_ADDED',
+    'KITCHEN_REMOVED',
+    'TICKETS_RESET',
+    'KITCHEN_BOARD',
+];
+
+// Opens the server-sent ticket event stream; reports connection state so callers can fall back to polling
+export function subscribeToTicketEvents(onEvent, onConnectionChange) {
+    if (typeof EventSource === 'undefined') {
+        onConnectionChange(false);
+        return () => {};
+    }
+    const source = new EventSource(`${API_BASE}/tickets/events`);
+    TICKET_EVENT_TYPES.forEach(type => {
+        source.addEventListener(type, (e) => {
+            try {
+                onEvent(JSON.parse(e.data), type);
+            } catch (error) {
+                console.error('Malformed ticket event', error);
+            }
+        });
+    });
+    source.onopen = () => onConnectionChange(true);
+    source.onerror = () => onConnectionChange(false);
+    return () => source.close();
+}
@@ -15,7 +15,7 @@ const TicketCard = ({ ticket, onClick }) => {
             </div>
             <div className="ticket-body">
                 <div className="ticket-info">
-                    <span>{itemCount} Items</span>
+                    {ticket.orders && <span>{itemCount} Items</span>}
                     <span className="ticket-time">{time}</span>
                 </div>
                 <div className="ticket-total">
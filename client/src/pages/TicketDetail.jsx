@@ -121,6 +121,20 @@ const TicketDetail = () => {
         }
     };
 
+    const ticketPath = `/tickets/${id}`;
+
+    // Index-based edits only apply to the ticket version the user is looking at
+    const guarded = () => ({ ifMatch: api.etag(ticketPath), cacheKey: ticketPath });
+
+    const reportWriteError = (e, prefix = '') => {
+        if (e.status === 412) {
+            toast.error('This ticket was changed on another device. Showing the latest version.');
+            fetchTicket();
+        } else {
+            toast.error(prefix + e.message);
+        }
+    };
+
     const fetchMenu = async () => {
         try {
             const menuData = await api.get('/menu');
@@ -164,12 +178,12 @@ const TicketDetail = () => {
             await api.post(`/tickets/${id}/orders/${orderIdx}/items`, {
                 menuItemId,
                 selectedSideId: selectedSideId || null,
-            });
+            }, guarded());
             setIsMenuOpen(false);
             setSelectedItemForSides(null);
             fetchTicket();
         } catch (e) {
-            toast.error(e.message);
+            reportWriteError(e);
         }
     };
 
@@ -243,11 +257,12 @@ const TicketDetail = () => {
 
     const handleUpdateItemPrice = async (orderIndex, itemIndex, newPriceCents) => {
         try {
-            await api.put(`/tickets/${id}/orders/${orderIndex}/items/${itemIndex}/price`, { newPrice: newPriceCents });
+            await api.put(`/tickets/${id}/orders/${orderIndex}/items/${itemIndex}/price`, { newPrice: newPriceCents }, guarded());
             setEditingPrice(null);
             fetchTicket();
         } catch (e) {
-            toast.error('Failed to update price: ' + e.message);
+            setEditingPrice(null);
+            reportWriteError(e, 'Failed to update price: ');
         }
     };
 
@@ -332,10 +347,10 @@ const TicketDetail = () => {
     const handleDeleteOrder = (orderIndex) => {
         confirmAction.current = async () => {
             try {
-                await api.delete(`/tickets/${id}/orders/${orderIndex}`);
+                await api.delete(`/tickets/${id}/orders/${orderIndex}`, undefined, guarded());
                 toast.success(`Order #${orderIndex + 1} deleted`);
             } catch (e) {
-                toast.error('Failed to delete order: ' + e.message);
+                reportWriteError(e, 'Failed to delete order: ');
             }
         };
         setConfirmationModal({
@@ -347,10 +362,10 @@ const TicketDetail = () => {
 
     const handleDeleteItem = async (orderIndex, itemIndex) => {
         try {
-            await api.delete(`/tickets/${id}/orders/${orderIndex}/items/${itemIndex}`);
+            await api.delete(`/tickets/${id}/orders/${orderIndex}/items/${itemIndex}`, undefined, guarded());
             fetchTicket();
         } catch (e) {
-            toast.error('Failed to delete item: ' + e.message);
+            reportWriteError(e, 'Failed to delete item: ');
         }
     };
 
@@ -391,11 +406,11 @@ const TicketDetail = () => {
                 const filtered = newOrders.filter(o => o.items.length > 0);
                 setTicket({ ...ticket, orders: filtered });
 
-                await api.put(`/tickets/${id}/orders/${fromOrderIndex}/items/${itemIndex}/move`, { targetOrderIndex });
+                await api.put(`/tickets/${id}/orders/${fromOrderIndex}/items/${itemIndex}/move`, { targetOrderIndex }, guarded());
                 fetchTicket();
             } catch (e) {
                 setTicket(prevTicket);
-                toast.error('Failed to move item: ' + e.message);
+                reportWriteError(e, 'Failed to move item: ');
             }
         } else if (activeData.type === 'ORDER') {
             const fromOrderIndex = activeData.orderIndex;
@@ -410,11 +425,11 @@ const TicketDetail = () => {
                 newOrders.splice(fromOrderIndex, 1);
                 setTicket({ ...ticket, orders: newOrders });
 
-                await api.put(`/tickets/${id}/orders/${fromOrderIndex}/merge`, { targetOrderIndex });
+                await api.put(`/tickets/${id}/orders/${fromOrderIndex}/merge`, { targetOrderIndex }, guarded());
                 fetchTicket();
             } catch (e) {
                 setTicket(prevTicket);
-                toast.error('Failed to merge orders: ' + e.message);
+                reportWriteError(e, 'Failed to merge orders: ');
             }
         }
     };
@@ -661,13 +676,13 @@ const TicketDetail = () => {
             await api.post(`/tickets/${id}/orders/${orderIdx}/combos`, {
                 comboId,
                 slotSelections,
-            });
+            }, guarded());
             setIsMenuOpen(false);
             setSelectedCombo(null);
             setComboSlotSelections({});
             fetchTicket();
         } catch (e) {
-            toast.error(e.message);
+            reportWriteError(e);
         }
     };
 
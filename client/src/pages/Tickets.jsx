@@ -1,6 +1,6 @@
 import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate, useLocation } from 'react-router-dom';
-import { api } from '../api/api';
+import { api, subscribeToTicketEvents, syncTickets } from '../api/api';
 import TicketCard from '../components/tickets/TicketCard';
 import KitchenTicketCard from '../components/tickets/KitchenTicketCard';
 import Button from '../components/common/Button';
@@ -40,16 +40,42 @@ const Tickets = () => {
     const [highlightedTicketIds, setHighlightedTicketIds] = useState([]);
     const initialLoadRef = useRef(true);
 
+    // Live updates arrive over the event stream; polling only runs while it is disconnected
+    const [streaming, setStreaming] = useState(false);
+    const fetchTicketsRef = useRef(null);
+    const refetchTimerRef = useRef(null);
+    // All-day counts across the kitchen queue, kept current by KITCHEN_BOARD events
+    const [kitchenBoard, setKitchenBoard] = useState(null);
+
+    useEffect(() => {
+        const unsubscribe = subscribeToTicketEvents((event, type) => {
+            if (type === 'KITCHEN_BOARD') {
+                setKitchenBoard(prev => (prev && prev.version > event.version ? prev : event));
+                return;
+            }
+            // Coalesce bursts of events (e.g. batch edits) into a single refetch
+            if (refetchTimerRef.current) return;
+            refetchTimerRef.current = setTimeout(() => {
+                refetchTimerRef.current = null;
+                if (fetchTicketsRef.current) fetchTicketsRef.current();
+            }, 250);
+        }, setStreaming);
+        return () => {
+            unsubscribe();
+            if (refetchTimerRef.current) clearTimeout(refetchTimerRef.current);
+        };
+    }, []);
+
     useEffect(() => {
         fetchTickets();
 
         // Poll for active tickets to keep UI fresh (both front active tab and back view)
         let interval;
-        if (viewMode === 'back' || activeTab === 'active') {
+        if (!streaming && (viewMode === 'back' || activeTab === 'active')) {
             interval = setInterval(fetchTickets, 5000);
         }
         return () => clearInterval(interval);
-    }, [activeTab, viewMode]);
+    }, [activeTab, viewMode, streaming]);
 
     const playSingleChime = (ctx) => {
         const oscillator = ctx.createOscillator();
@@ -158,17 +184,20 @@ const Tickets = () => {
         if (!mounted.current) return;
         setLoading(true);
         try {
-            let endpoint;
+            let data;
             if (viewMode === 'back') {
-                endpoint = '/tickets/active/kitchen';
+                const [kitchenTickets, board] = await Promise.all([
+                    api.get('/tickets/active/kitchen'),
+                    api.get('/kitchen/board'),
+                ]);
+                data = kitchenTickets;
+                if (mounted.current) setKitchenBoard(board);
             } else {
-                endpoint = '/tickets/active';
-                if (activeTab === 'completed') endpoint = '/tickets/completed';
-                if (activeTab === 'closed') endpoint = '/tickets/closed';
+                // Only tickets changed since the last sync come over the wire
+                const status = activeTab.toUpperCase();
+                data = (await syncTickets()).filter(ticket => ticket.status === status);
             }
 
-            const data = await api.get(endpoint);
-
             if (mounted.current) {
                 // sort by ID descending for newest first
                 const sorted = (data || []).sort((a, b) => b.id - a.id);
@@ -191,6 +220,8 @@ const Tickets = () => {
         }
     };
 
+    fetchTicketsRef.current = fetchTickets;
+
     const handleCreateTicket = async (e) => {
         e.preventDefault();
         try {
@@ -277,6 +308,16 @@ const Tickets = () => {
                 {viewMode === 'back' && (
                     <div className="back-view-label">Active Kitchen Tickets</div>
                 )}
+                {viewMode === 'back' && kitchenBoard && Object.keys(kitchenBoard.counts).length > 0 && (
+                    <div className="kitchen-board">
+                        <span className="kitchen-board-label">All day</span>
+                        {Object.entries(kitchenBoard.counts).map(([name, count]) => (
+                            <span key={name} className="kitchen-board-count">
+                                {Number.isInteger(count) ? count : count.toFixed(1)} × {name}
+                            </span>
+                        ))}
+                    </div>
+                )}
                 {viewMode === 'front' && activeTab === 'active' && (
                     <Button onClick={() => setIsCreateModalOpen(true)}>
                         + New Ticket
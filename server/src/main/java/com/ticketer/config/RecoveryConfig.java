@@ -0,0 +1,22 @@
+package com.ticketer.config;
+
+import com.ticketer.repositories.RecoveryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RecoveryConfig {
+
+    @Bean
+    public RecoveryOptions recoveryOptions(
+            @Value("${recovery.durability:buffered}") String durability,
+            @Value("${recovery.format:json}") String format,
+            @Value("${recovery.storage:file}") String storage,
+            @Value("${recovery.segment.bytes:4194304}") long segmentBytes,
+            @Value("${recovery.sync.interval.ms:1000}") long syncIntervalMillis,
+            @Value("${recovery.snapshot.entries:5000}") int snapshotEntries,
+            @Value("${recovery.snapshot.bytes:8388608}") long snapshotBytes) {
+        return new RecoveryOptions(durability, format, storage, segmentBytes, syncIntervalMillis, snapshotEntries, snapshotBytes);
+    }
+}
@@ -0,0 +1,25 @@
+package com.ticketer.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import com.ticketer.api.ApiResponse;
+import com.ticketer.dtos.KitchenBoardDto;
+import com.ticketer.services.KitchenBoard;
+
+@RestController
+@RequestMapping("/api/kitchen")
+public class KitchenController {
+
+    private final KitchenBoard kitchenBoard;
+
+    @Autowired
+    public KitchenController(KitchenBoard kitchenBoard) {
+        this.kitchenBoard = kitchenBoard;
+    }
+
+    @GetMapping("/board")
+    public ApiResponse<KitchenBoardDto> getBoard() {
+        return ApiResponse.success(kitchenBoard.getBoard());
+    }
+}
@@ -4,16 +4,24 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.ticketer.api.ApiResponse;
 import com.ticketer.dtos.*;
 import com.ticketer.exceptions.EntityNotFoundException;
+import com.ticketer.exceptions.InvalidInputException;
 import com.ticketer.models.Order;
 import com.ticketer.models.OrderItem;
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChange;
+import com.ticketer.models.TicketStatus;
 import com.ticketer.services.MenuService;
 import com.ticketer.services.SettingsService;
+import com.ticketer.services.TicketEventStream;
 import com.ticketer.services.TicketService;
 
 @RestController
@@ -25,12 +33,20 @@ public class TicketController {
     private final TicketService ticketService;
     private final MenuService menuService;
     private final SettingsService settingsService;
+    private final TicketEventStream ticketEvents;
 
     @Autowired
-    public TicketController(TicketService ticketService, MenuService menuService, SettingsService settingsService) {
+    public TicketController(TicketService ticketService, MenuService menuService, SettingsService settingsService,
+            TicketEventStream ticketEvents) {
         this.ticketService = ticketService;
         this.menuService = menuService;
         this.settingsService = settingsService;
+        this.ticketEvents = ticketEvents;
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        return ticketEvents.subscribe();
     }
 
     @PostMapping("/counter/reset")
@@ -45,7 +61,7 @@ public class TicketController {
         logger.info("Received request to create ticket for table: {}", request.tableNumber());
         Ticket ticket = ticketService.createTicket(request.tableNumber());
         if (request.comment() != null && !request.comment().trim().isEmpty()) {
-            ticket.setComment(request.comment());
+            ticketService.updateTicketComment(ticket.getId(), request.comment());
         }
         Order initialOrder = new Order(settingsService.getTax());
         ticketService.addOrderToTicket(ticket.getId(), initialOrder);
@@ -53,11 +69,16 @@ public class TicketController {
     }
 
     @GetMapping("/{ticketId}")
-    public ApiResponse<TicketDto> getTicket(@PathVariable("ticketId") int ticketId) {
+    public ResponseEntity<ApiResponse<TicketDto>> getTicket(@PathVariable("ticketId") int ticketId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         Ticket ticket = ticketService.getTicket(ticketId);
         if (ticket == null)
             throw new EntityNotFoundException("Ticket not found");
-        return ApiResponse.success(DtoMapper.toTicketDto(ticket));
+        String eTag = eTag(ticket);
+        if (ifNoneMatch != null && matchesWeak(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(ApiResponse.success(DtoMapper.toTicketDto(ticket)));
     }
 
     @GetMapping("/{ticketId}/tally")
@@ -79,15 +100,16 @@ public class TicketController {
     }
 
     @PostMapping("/{ticketId}/orders")
-    public ApiResponse<TicketDto> addOrderToTicket(@PathVariable("ticketId") int ticketId,
-            @RequestBody(required = false) Requests.AddOrderRequest request) {
+    public ResponseEntity<ApiResponse<TicketDto>> addOrderToTicket(@PathVariable("ticketId") int ticketId,
+            @RequestBody(required = false) Requests.AddOrderRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to add order to ticket: {}", ticketId);
         Order order = new Order(settingsService.getTax());
         if (request != null && request.comment() != null && !request.comment().trim().isEmpty()) {
             order.setComment(request.comment());
         }
-        ticketService.addOrderToTicket(ticketId, order);
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.addOrderToTicket(ticketId, order));
+        return ticketResponse(ticketId);
     }
 
     @GetMapping("/{ticketId}/orders/{orderIndex}")
@@ -98,100 +120,165 @@ public class TicketController {
     }
 
     @DeleteMapping("/{ticketId}/orders/{orderIndex}")
-    public ApiResponse<TicketDto> removeOrderFromTicket(@PathVariable("ticketId") int ticketId,
-            @PathVariable("orderIndex") int orderIndex) {
-        ticketService.removeOrder(ticketId, orderIndex);
-        return getTicket(ticketId);
+    public ResponseEntity<ApiResponse<TicketDto>> removeOrderFromTicket(@PathVariable("ticketId") int ticketId,
+            @PathVariable("orderIndex") int orderIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        conditionally(ticketId, ifMatch, () -> ticketService.removeOrder(ticketId, orderIndex));
+        return ticketResponse(ticketId);
     }
 
     @PostMapping("/{ticketId}/orders/{orderIndex}/items")
-    public ApiResponse<TicketDto> addItemToOrder(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> addItemToOrder(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
-            @RequestBody Requests.AddItemOrderRequest request) {
+            @RequestBody Requests.AddItemOrderRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to add item to ticket {} order {}", ticketId, orderIndex);
         OrderItem item = menuService.createItemOrderItem(request.menuItemId(), request.selectedSideId());
-        ticketService.addItemToOrder(ticketId, orderIndex, item, request.comment());
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.addItemToOrder(ticketId, orderIndex, item, request.comment()));
+        return ticketResponse(ticketId);
     }
 
     @PostMapping("/{ticketId}/orders/{orderIndex}/combos")
-    public ApiResponse<TicketDto> addComboToOrder(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> addComboToOrder(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
-            @RequestBody Requests.AddComboOrderRequest request) {
+            @RequestBody Requests.AddComboOrderRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to add combo to ticket {} order {}", ticketId, orderIndex);
         OrderItem item = menuService.createComboOrderItem(request.comboId(), request.slotSelections());
-        ticketService.addItemToOrder(ticketId, orderIndex, item, request.comment());
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.addItemToOrder(ticketId, orderIndex, item, request.comment()));
+        return ticketResponse(ticketId);
     }
 
     @DeleteMapping("/{ticketId}/orders/{orderIndex}/items/{itemIndex}")
-    public ApiResponse<TicketDto> removeItemFromOrder(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> removeItemFromOrder(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
-            @PathVariable("itemIndex") int itemIndex) {
-        ticketService.removeItemFromOrderByIndex(ticketId, orderIndex, itemIndex);
-        return getTicket(ticketId);
+            @PathVariable("itemIndex") int itemIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        conditionally(ticketId, ifMatch, () -> ticketService.removeItemFromOrderByIndex(ticketId, orderIndex, itemIndex));
+        return ticketResponse(ticketId);
     }
 
     @PutMapping("/{ticketId}/comment")
-    public ApiResponse<TicketDto> updateTicketComment(@PathVariable("ticketId") int ticketId,
-            @RequestBody Requests.UpdateCommentRequest request) {
-        ticketService.updateTicketComment(ticketId, request.comment());
-        return getTicket(ticketId);
+    public ResponseEntity<ApiResponse<TicketDto>> updateTicketComment(@PathVariable("ticketId") int ticketId,
+            @RequestBody Requests.UpdateCommentRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        conditionally(ticketId, ifMatch, () -> ticketService.updateTicketComment(ticketId, request.comment()));
+        return ticketResponse(ticketId);
     }
 
     @PutMapping("/{ticketId}/orders/{orderIndex}/comment")
-    public ApiResponse<TicketDto> updateOrderComment(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> updateOrderComment(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
-            @RequestBody Requests.UpdateCommentRequest request) {
-        ticketService.updateOrderComment(ticketId, orderIndex, request.comment());
-        return getTicket(ticketId);
+            @RequestBody Requests.UpdateCommentRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        conditionally(ticketId, ifMatch, () -> ticketService.updateOrderComment(ticketId, orderIndex, request.comment()));
+        return ticketResponse(ticketId);
     }
 
     @PutMapping("/{ticketId}/orders/{orderIndex}/items/{itemIndex}/move")
-    public ApiResponse<TicketDto> moveItem(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> moveItem(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
             @PathVariable("itemIndex") int itemIndex,
-            @RequestBody Requests.MoveItemRequest request) {
+            @RequestBody Requests.MoveItemRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Moving item {} from order {} to order {} on ticket {}", itemIndex, orderIndex, request.targetOrderIndex(), ticketId);
-        ticketService.moveItemBetweenOrders(ticketId, orderIndex, itemIndex, request.targetOrderIndex());
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.moveItemBetweenOrders(ticketId, orderIndex, itemIndex, request.targetOrderIndex()));
+        return ticketResponse(ticketId);
     }
 
     @PutMapping("/{ticketId}/orders/{orderIndex}/merge")
-    public ApiResponse<TicketDto> mergeOrders(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> mergeOrders(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
-            @RequestBody Requests.MergeOrdersRequest request) {
+            @RequestBody Requests.MergeOrdersRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Merging order {} into order {} on ticket {}", orderIndex, request.targetOrderIndex(), ticketId);
-        ticketService.mergeOrders(ticketId, orderIndex, request.targetOrderIndex());
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.mergeOrders(ticketId, orderIndex, request.targetOrderIndex()));
+        return ticketResponse(ticketId);
+    }
+
+    @PostMapping("/{ticketId}/batch")
+    public ResponseEntity<ApiResponse<TicketDto>> applyBatch(@PathVariable("ticketId") int ticketId,
+            @RequestBody Requests.BatchRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        List<Requests.BatchOperation> operations = request.operations() == null ? List.of() : request.operations();
+        logger.info("Received batch of {} operations for ticket {}", operations.size(), ticketId);
+        List<TicketChange> changes = operations.stream().map(this::toChange).collect(Collectors.toList());
+        conditionally(ticketId, ifMatch, () -> ticketService.applyBatch(ticketId, changes));
+        return ticketResponse(ticketId);
+    }
+
+    private TicketChange toChange(Requests.BatchOperation operation) {
+        if (operation.type() == null) {
+            throw new InvalidInputException("Batch operation type is required");
+        }
+        return switch (operation.type().toUpperCase()) {
+            case "ADD_ORDER" -> {
+                Order order = new Order(settingsService.getTax());
+                if (operation.comment() != null && !operation.comment().trim().isEmpty()) {
+                    order.setComment(operation.comment());
+                }
+                yield TicketChange.orderAdded(order);
+            }
+            case "ADD_ITEM" -> TicketChange.itemAdded(index(operation.orderIndex(), "orderIndex"), withComment(
+                    menuService.createItemOrderItem(operation.menuItemId(), operation.selectedSideId()),
+                    operation.comment()));
+            case "ADD_COMBO" -> TicketChange.itemAdded(index(operation.orderIndex(), "orderIndex"), withComment(
+                    menuService.createComboOrderItem(operation.comboId(), operation.slotSelections()),
+                    operation.comment()));
+            case "TICKET_COMMENT" -> TicketChange.ticketComment(operation.comment());
+            case "ORDER_COMMENT" -> TicketChange.orderComment(index(operation.orderIndex(), "orderIndex"),
+                    operation.comment());
+            case "ITEM_COMMENT" -> TicketChange.itemComment(index(operation.orderIndex(), "orderIndex"),
+                    index(operation.itemIndex(), "itemIndex"), operation.comment());
+            case "REMOVE_ITEM" -> TicketChange.itemRemoved(index(operation.orderIndex(), "orderIndex"),
+                    index(operation.itemIndex(), "itemIndex"));
+            case "REMOVE_ORDER" -> TicketChange.orderRemoved(index(operation.orderIndex(), "orderIndex"));
+            case "MOVE_ITEM" -> TicketChange.itemMoved(index(operation.orderIndex(), "orderIndex"),
+                    index(operation.itemIndex(), "itemIndex"), index(operation.targetOrderIndex(), "targetOrderIndex"));
+            case "MERGE_ORDERS" -> TicketChange.ordersMerged(index(operation.orderIndex(), "orderIndex"),
+                    index(operation.targetOrderIndex(), "targetOrderIndex"));
+            default -> throw new InvalidInputException("Unknown batch operation: " + operation.type());
+        };
+    }
+
+    private static int index(Integer value, String name) {
+        if (value == null) {
+            throw new InvalidInputException(name + " is required");
+        }
+        return value;
+    }
+
+    private static OrderItem withComment(OrderItem item, String comment) {
+        if (comment != null && !comment.trim().isEmpty()) {
+            item.setComment(comment);
+        }
+        return item;
     }
 
     @PutMapping("/{ticketId}/orders/{orderIndex}/items/{itemIndex}/price")
-    public ApiResponse<TicketDto> updateItemPrice(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> updateItemPrice(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
             @PathVariable("itemIndex") int itemIndex,
-            @RequestBody Requests.ItemPriceUpdateRequest request) {
+            @RequestBody Requests.ItemPriceUpdateRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Updating item price: ticket={}, order={}, item={}, newPrice={}", ticketId, orderIndex, itemIndex, request.newPrice());
-        ticketService.updateItemPrice(ticketId, orderIndex, itemIndex, request.newPrice());
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.updateItemPrice(ticketId, orderIndex, itemIndex, request.newPrice()));
+        return ticketResponse(ticketId);
     }
 
     @PutMapping("/{ticketId}/orders/{orderIndex}/items/{itemIndex}/comment")
-    public ApiResponse<TicketDto> updateItemComment(@PathVariable("ticketId") int ticketId,
+    public ResponseEntity<ApiResponse<TicketDto>> updateItemComment(@PathVariable("ticketId") int ticketId,
             @PathVariable("orderIndex") int orderIndex,
             @PathVariable("itemIndex") int itemIndex,
-            @RequestBody Requests.UpdateCommentRequest request) {
-        ticketService.updateItemComment(ticketId, orderIndex, itemIndex, request.comment());
-        return getTicket(ticketId);
+            @RequestBody Requests.UpdateCommentRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        conditionally(ticketId, ifMatch, () -> ticketService.updateItemComment(ticketId, orderIndex, itemIndex, request.comment()));
+        return ticketResponse(ticketId);
     }
 
     @GetMapping("/active/kitchen")
     public ApiResponse<List<KitchenTicketDto>> getActiveKitchenTickets() {
-        List<Ticket> kitchenTickets = ticketService.getKitchenTickets();
-        List<KitchenTicketDto> result = kitchenTickets.stream()
-                .map(menuService::getKitchenDetails)
-                .collect(Collectors.toList());
-        return ApiResponse.success(result);
+        return ApiResponse.success(menuService.getKitchenDetails(ticketService.getKitchenTickets()));
     }
 
     @PostMapping("/{ticketId}/kitchen")
@@ -215,6 +302,13 @@ public class TicketController {
                         .collect(Collectors.toList()));
     }
 
+    @GetMapping("/by-table/{tableNumber}")
+    public ApiResponse<List<TicketDto>> getOpenTicketsForTable(@PathVariable("tableNumber") String tableNumber) {
+        return ApiResponse.success(ticketService.getOpenTicketsForTable(tableNumber).stream()
+                .map(DtoMapper::toTicketDto)
+                .collect(Collectors.toList()));
+    }
+
     @GetMapping("/completed")
     public ApiResponse<List<TicketDto>> getCompletedTickets() {
         return ApiResponse.success(ticketService.getCompletedTickets().stream().map(DtoMapper::toTicketDto)
@@ -228,35 +322,57 @@ public class TicketController {
                         .collect(Collectors.toList()));
     }
 
+    @GetMapping("/closed/summaries")
+    public ApiResponse<List<TicketSummaryDto>> getClosedTicketSummaries() {
+        return ApiResponse.success(
+                ticketService.getClosedTicketSummaries().stream().map(DtoMapper::toTicketSummaryDto)
+                        .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/changes")
+    public ApiResponse<TicketChangesDto> getTicketChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since) {
+        return ApiResponse.success(DtoMapper.toTicketChangesDto(ticketService.getTicketChanges(since)));
+    }
+
     @PutMapping("/{ticketId}/completed")
-    public ApiResponse<TicketDto> moveToCompleted(@PathVariable("ticketId") int ticketId) {
+    public ResponseEntity<ApiResponse<TicketDto>> moveToCompleted(@PathVariable("ticketId") int ticketId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to move ticket {} to completed", ticketId);
-        ticketService.moveToCompleted(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.moveToCompleted(ticketId));
         Ticket t = ticketService.getCompletedTickets().stream().filter(x -> x.getId() == ticketId).findFirst()
                 .orElse(null);
-        return ApiResponse.success(DtoMapper.toTicketDto(t));
+        if (t == null) {
+            return ResponseEntity.ok(ApiResponse.success(null));
+        }
+        return ResponseEntity.ok().eTag(eTag(t)).body(ApiResponse.success(DtoMapper.toTicketDto(t)));
     }
 
     @PutMapping("/{ticketId}/closed")
-    public ApiResponse<TicketDto> moveToClosed(@PathVariable("ticketId") int ticketId) {
+    public ResponseEntity<ApiResponse<TicketDto>> moveToClosed(@PathVariable("ticketId") int ticketId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to move ticket {} to closed", ticketId);
-        ticketService.moveToClosed(ticketId);
-        Ticket t = ticketService.getClosedTickets().stream().filter(x -> x.getId() == ticketId).findFirst()
-                .orElse(null);
-        return ApiResponse.success(DtoMapper.toTicketDto(t));
+        conditionally(ticketId, ifMatch, () -> ticketService.moveToClosed(ticketId));
+        Ticket t = ticketService.getTicket(ticketId);
+        if (t == null || t.getStatus() != TicketStatus.CLOSED) {
+            return ResponseEntity.ok(ApiResponse.success(null));
+        }
+        return ResponseEntity.ok().eTag(eTag(t)).body(ApiResponse.success(DtoMapper.toTicketDto(t)));
     }
 
     @PutMapping("/{ticketId}/active")
-    public ApiResponse<TicketDto> moveToActive(@PathVariable("ticketId") int ticketId) {
+    public ResponseEntity<ApiResponse<TicketDto>> moveToActive(@PathVariable("ticketId") int ticketId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to move ticket {} to active", ticketId);
-        ticketService.moveToActive(ticketId);
-        return getTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.moveToActive(ticketId));
+        return ticketResponse(ticketId);
     }
 
     @DeleteMapping("/{ticketId}")
-    public ApiResponse<List<String>> removeTicket(@PathVariable("ticketId") int ticketId) {
+    public ApiResponse<List<String>> removeTicket(@PathVariable("ticketId") int ticketId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         logger.info("Received request to remove ticket: {}", ticketId);
-        ticketService.removeTicket(ticketId);
+        conditionally(ticketId, ifMatch, () -> ticketService.removeTicket(ticketId));
         return ApiResponse.success(java.util.Collections.emptyList());
     }
 
@@ -279,4 +395,48 @@ public class TicketController {
     public ApiResponse<Long> getActiveAndCompletedTicketsTotal() {
         return ApiResponse.success(ticketService.getActiveAndCompletedTicketsTotal());
     }
+
+    private ResponseEntity<ApiResponse<TicketDto>> ticketResponse(int ticketId) {
+        Ticket ticket = ticketService.getTicket(ticketId);
+        if (ticket == null)
+            throw new EntityNotFoundException("Ticket not found");
+        return ResponseEntity.ok().eTag(eTag(ticket)).body(ApiResponse.success(DtoMapper.toTicketDto(ticket)));
+    }
+
+    private void conditionally(int ticketId, String ifMatch, Runnable command) {
+        if (ifMatch == null) {
+            command.run();
+            return;
+        }
+        ticketService.executeIfMatch(ticketId, ticket -> matchesStrong(ifMatch, eTag(ticket)), () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    private static String eTag(Ticket ticket) {
+        long created = ticket.getCreatedAt() == null ? 0 : ticket.getCreatedAt().toEpochMilli();
+        return "\"" + created + "." + ticket.getRevision() + "\"";
+    }
+
+    private static boolean matchesStrong(String header, String eTag) {
+        return matches(header, eTag, false);
+    }
+
+    private static boolean matchesWeak(String header, String eTag) {
+        return matches(header, eTag, true);
+    }
+
+    private static boolean matches(String header, String eTag, boolean weak) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (weak && tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
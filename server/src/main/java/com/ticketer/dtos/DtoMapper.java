@@ -22,6 +22,9 @@ import com.ticketer.models.Order;
 import com.ticketer.models.OrderItem;
 import com.ticketer.models.Settings;
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChangeSet;
+import com.ticketer.models.TicketStatus;
+import com.ticketer.models.TicketSummary;
 
 public class DtoMapper {
 
@@ -200,11 +203,37 @@ public class DtoMapper {
                 ticket.getSubtotal(),
                 ticket.getTotal(),
                 ticket.getTax(),
-                ticket.getStatus(),
+                ticket.getStatus().name(),
                 ticket.getCreatedAt() != null
                         ? ticket.getCreatedAt().atZone(zone).format(formatter) : null,
                 ticket.getClosedAt() != null
                         ? ticket.getClosedAt().atZone(zone).format(formatter) : null,
                 ticket.getComment());
     }
+
+    public static TicketChangesDto toTicketChangesDto(TicketChangeSet changes) {
+        return new TicketChangesDto(
+                changes.seq(),
+                changes.reset(),
+                changes.tickets().stream().map(DtoMapper::toTicketDto).collect(Collectors.toList()),
+                changes.removed(),
+                changes.archived().stream().map(DtoMapper::toTicketSummaryDto).collect(Collectors.toList()));
+    }
+
+    public static TicketSummaryDto toTicketSummaryDto(TicketSummary summary) {
+        if (summary == null) return null;
+        java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+        java.time.ZoneId zone = java.time.ZoneId.of("UTC");
+
+        return new TicketSummaryDto(
+                summary.getId(),
+                summary.getTableNumber(),
+                summary.getSubtotal(),
+                summary.getTotal(),
+                TicketStatus.CLOSED.name(),
+                summary.getCreatedAt() != null
+                        ? summary.getCreatedAt().atZone(zone).format(formatter) : null,
+                summary.getClosedAt() != null
+                        ? summary.getClosedAt().atZone(zone).format(formatter) : null);
+    }
 }
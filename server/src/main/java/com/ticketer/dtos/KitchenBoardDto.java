@@ -0,0 +1,8 @@
+package com.ticketer.dtos;
+import java.util.Map;
+
+public record KitchenBoardDto(
+        long version,
+        int tickets,
+        Map<String, Double> counts) {
+}
@@ -89,6 +89,14 @@ public class Requests {
     public record MergeOrdersRequest(int targetOrderIndex) {
     }
 
+    public record BatchOperation(String type, Integer orderIndex, Integer itemIndex, Integer targetOrderIndex,
+            UUID menuItemId, UUID selectedSideId, UUID comboId, List<SlotSelectionRequest> slotSelections,
+            String comment) {
+    }
+
+    public record BatchRequest(List<BatchOperation> operations) {
+    }
+
     public record PrintOrdersRequest(List<Integer> orderIndices) {
     }
 
@@ -0,0 +1,10 @@
+package com.ticketer.dtos;
+import java.util.List;
+
+public record TicketChangesDto(
+        long seq,
+        boolean reset,
+        List<TicketDto> tickets,
+        List<Integer> removed,
+        List<TicketSummaryDto> archived) {
+}
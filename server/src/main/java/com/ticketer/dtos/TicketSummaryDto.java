@@ -0,0 +1,11 @@
+package com.ticketer.dtos;
+
+public record TicketSummaryDto(
+        int id,
+        String tableNumber,
+        long subtotal,
+        long total,
+        String status,
+        String createdAt,
+        String closedAt) {
+}
@@ -0,0 +1,7 @@
+package com.ticketer.exceptions;
+
+public class PreconditionFailedException extends TicketerException {
+    public PreconditionFailedException(String message) {
+        super(message, 412);
+    }
+}
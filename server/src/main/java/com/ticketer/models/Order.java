@@ -8,7 +8,7 @@ import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Order {
-    private List<OrderItem> items;
+    private volatile List<OrderItem> items;
     private long subtotal;
     private long total;
     private long tax;
@@ -18,7 +18,7 @@ public class Order {
     private String comment;
 
     public Order(int taxRate) {
-        this.items = new ArrayList<>();
+        this.items = List.of();
         this.subtotal = 0;
         this.total = 0;
         this.tax = 0;
@@ -30,7 +30,7 @@ public class Order {
     }
 
     public void addItem(OrderItem item) {
-        items.add(item);
+        items = PersistentLists.append(items, item);
         subtotal += item.getPrice();
         updateTotal();
     }
@@ -39,7 +39,7 @@ public class Order {
         int index = items.indexOf(item);
         if (index >= 0) {
             OrderItem actualItem = items.get(index);
-            items.remove(index);
+            items = PersistentLists.removeAt(items, index);
             subtotal -= actualItem.getPrice();
             updateTotal();
             return true;
@@ -51,7 +51,8 @@ public class Order {
         if (index < 0 || index >= items.size()) {
             return null;
         }
-        OrderItem removed = items.remove(index);
+        OrderItem removed = items.get(index);
+        items = PersistentLists.removeAt(items, index);
         subtotal -= removed.getPrice();
         updateTotal();
         return removed;
@@ -80,7 +81,7 @@ public class Order {
     }
 
     public List<OrderItem> getItems() {
-        return new ArrayList<>(items);
+        return items;
     }
 
     public long getSubtotal() {
@@ -103,16 +104,35 @@ public class Order {
         this.comment = comment;
     }
 
+    Order revise() {
+        Order revised = new Order(taxRate);
+        revised.comment = comment;
+        revised.items = items;
+        revised.subtotal = subtotal;
+        revised.tax = tax;
+        revised.total = total;
+        return revised;
+    }
+
+    void replaceItem(int index, OrderItem item) {
+        items = PersistentLists.set(items, index, item);
+        recalculateSubtotal();
+    }
+
+    public Order copy() {
+        Order copy = new Order(taxRate);
+        copy.setComment(comment);
+        List<OrderItem> copied = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            copied.add(item.copy());
+        }
+        copy.setItems(copied);
+        return copy;
+    }
+
     @JsonSetter("items")
     public void setItems(List<OrderItem> newItems) {
-        this.items = new ArrayList<>();
-        this.subtotal = 0;
-        this.total = 0;
-        this.tax = 0;
-        if (newItems != null) {
-            for (OrderItem item : newItems) {
-                addItem(item);
-            }
-        }
+        this.items = PersistentLists.of(newItems);
+        recalculateSubtotal();
     }
 }
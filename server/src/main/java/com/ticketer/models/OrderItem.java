@@ -134,6 +134,11 @@ public class OrderItem {
 
     public boolean isAlcohol() { return alcohol; }
 
+    public OrderItem copy() {
+        return new OrderItem(type, menuItemId, name, selectedSideId, selectedSide, mainPrice, sidePrice,
+                comboId, components, slotSelections, comment, alcohol);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
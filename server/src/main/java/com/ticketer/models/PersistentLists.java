@@ -0,0 +1,45 @@
+package com.ticketer.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+final class PersistentLists {
+
+    private PersistentLists() {
+    }
+
+    static <T> List<T> of(List<T> source) {
+        if (source == null || source.isEmpty()) {
+            return List.of();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(source));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> append(List<T> list, T element) {
+        Object[] next = Arrays.copyOf(list.toArray(), list.size() + 1);
+        next[list.size()] = element;
+        return Collections.unmodifiableList(Arrays.asList((T[]) next));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> set(List<T> list, int index, T element) {
+        Object[] next = list.toArray();
+        next[index] = element;
+        return Collections.unmodifiableList(Arrays.asList((T[]) next));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> removeAt(List<T> list, int index) {
+        if (list.size() == 1) {
+            return List.of();
+        }
+        Object[] current = list.toArray();
+        Object[] next = new Object[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        return Collections.unmodifiableList(Arrays.asList((T[]) next));
+    }
+}
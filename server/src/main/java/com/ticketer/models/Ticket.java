@@ -11,11 +11,11 @@ import java.util.List;
 public class Ticket {
     private int id;
     private String tableNumber;
-    private List<Order> orders;
+    private volatile List<Order> orders;
     private Instant createdAt;
     private Instant closedAt;
 
-    private String status = "ACTIVE";
+    private TicketStatus status = TicketStatus.ACTIVE;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private String comment;
@@ -29,36 +29,47 @@ public class Ticket {
     @com.fasterxml.jackson.annotation.JsonProperty("tax")
     private Long persistedTax;
 
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long revision;
+
+    @JsonIgnore
+    private final List<TicketChange> pendingChanges = new ArrayList<>();
+
     @SuppressWarnings("unused")
     private Ticket() {
-        this.orders = new ArrayList<>();
+        this.orders = List.of();
         this.createdAt = Instant.now();
-        this.status = "ACTIVE";
+        this.status = TicketStatus.ACTIVE;
     }
 
     public Ticket(int id) {
         this.id = id;
         this.tableNumber = "";
-        this.orders = new ArrayList<>();
+        this.orders = List.of();
         this.createdAt = Instant.now();
         this.closedAt = null;
-        this.status = "ACTIVE";
+        this.status = TicketStatus.ACTIVE;
     }
 
-    public String getStatus() {
+    public TicketStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(TicketStatus status) {
         this.status = status;
     }
 
     public void addOrder(Order order) {
-        orders.add(order);
+        orders = PersistentLists.append(orders, order);
     }
 
     public boolean removeOrder(Order order) {
-        return orders.remove(order);
+        int index = orders.indexOf(order);
+        if (index < 0) {
+            return false;
+        }
+        orders = PersistentLists.removeAt(orders, index);
+        return true;
     }
 
     public void setTableNumber(String tableNumber) {
@@ -74,11 +85,11 @@ public class Ticket {
     }
 
     public List<Order> getOrders() {
-        return new ArrayList<>(orders);
+        return orders;
     }
 
     public void setOrders(List<Order> orders) {
-        this.orders = orders;
+        this.orders = PersistentLists.of(orders);
     }
 
     public long getSubtotal() {
@@ -132,6 +143,42 @@ public class Ticket {
         this.comment = comment;
     }
 
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public synchronized void apply(TicketChange change) {
+        applyChange(change);
+        revision++;
+        pendingChanges.add(change.detach(revision));
+    }
+
+    public synchronized boolean replay(TicketChange change) {
+        if (change.getRevision() <= revision) {
+            return false;
+        }
+        applyChange(change);
+        revision = change.getRevision();
+        return true;
+    }
+
+    private void applyChange(TicketChange change) {
+        change.applyTo(this);
+        if (persistedSubtotal != null) {
+            recalculatePersistedTotals();
+        }
+    }
+
+    public synchronized List<TicketChange> drainChanges() {
+        List<TicketChange> drained = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        return drained;
+    }
+
     @JsonIgnore
     private String orderLabel;
 
@@ -0,0 +1,205 @@
+package com.ticketer.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TicketChange {
+
+    public enum Type {
+        ORDER_ADDED,
+        ORDER_REMOVED,
+        ORDER_COMMENT,
+        ORDER_MERGED,
+        ITEM_ADDED,
+        ITEM_REMOVED,
+        ITEM_COMMENT,
+        ITEM_MOVED,
+        PRICE_CHANGED,
+        TICKET_COMMENT,
+        STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final Integer orderIndex;
+    private final Integer itemIndex;
+    private final Integer targetIndex;
+    private final Order order;
+    private final OrderItem item;
+    private final String text;
+    private final Long price;
+    private final long revision;
+
+    @JsonCreator
+    public TicketChange(
+            @JsonProperty("type") Type type,
+            @JsonProperty("orderIndex") Integer orderIndex,
+            @JsonProperty("itemIndex") Integer itemIndex,
+            @JsonProperty("targetIndex") Integer targetIndex,
+            @JsonProperty("order") Order order,
+            @JsonProperty("item") OrderItem item,
+            @JsonProperty("text") String text,
+            @JsonProperty("price") Long price,
+            @JsonProperty("revision") long revision) {
+        this.type = type;
+        this.orderIndex = orderIndex;
+        this.itemIndex = itemIndex;
+        this.targetIndex = targetIndex;
+        this.order = order;
+        this.item = item;
+        this.text = text;
+        this.price = price;
+        this.revision = revision;
+    }
+
+    private TicketChange(Type type, Integer orderIndex, Integer itemIndex, Integer targetIndex, Order order,
+            OrderItem item, String text, Long price) {
+        this(type, orderIndex, itemIndex, targetIndex, order, item, text, price, 0);
+    }
+
+    public static TicketChange orderAdded(Order order) {
+        return new TicketChange(Type.ORDER_ADDED, null, null, null, order, null, null, null);
+    }
+
+    public static TicketChange orderRemoved(int orderIndex) {
+        return new TicketChange(Type.ORDER_REMOVED, orderIndex, null, null, null, null, null, null);
+    }
+
+    public static TicketChange orderComment(int orderIndex, String comment) {
+        return new TicketChange(Type.ORDER_COMMENT, orderIndex, null, null, null, null, comment, null);
+    }
+
+    public static TicketChange ordersMerged(int fromOrderIndex, int intoOrderIndex) {
+        return new TicketChange(Type.ORDER_MERGED, fromOrderIndex, null, intoOrderIndex, null, null, null, null);
+    }
+
+    public static TicketChange itemAdded(int orderIndex, OrderItem item) {
+        return new TicketChange(Type.ITEM_ADDED, orderIndex, null, null, null, item, null, null);
+    }
+
+    public static TicketChange itemRemoved(int orderIndex, int itemIndex) {
+        return new TicketChange(Type.ITEM_REMOVED, orderIndex, itemIndex, null, null, null, null, null);
+    }
+
+    public static TicketChange itemComment(int orderIndex, int itemIndex, String comment) {
+        return new TicketChange(Type.ITEM_COMMENT, orderIndex, itemIndex, null, null, null, comment, null);
+    }
+
+    public static TicketChange itemMoved(int fromOrderIndex, int itemIndex, int toOrderIndex) {
+        return new TicketChange(Type.ITEM_MOVED, fromOrderIndex, itemIndex, toOrderIndex, null, null, null, null);
+    }
+
+    public static TicketChange priceChanged(int orderIndex, int itemIndex, long price) {
+        return new TicketChange(Type.PRICE_CHANGED, orderIndex, itemIndex, null, null, null, null, price);
+    }
+
+    public static TicketChange ticketComment(String comment) {
+        return new TicketChange(Type.TICKET_COMMENT, null, null, null, null, null, comment, null);
+    }
+
+    public static TicketChange statusChanged(TicketStatus status) {
+        return new TicketChange(Type.STATUS_CHANGED, null, null, null, null, null, status.name(), null);
+    }
+
+    public void applyTo(Ticket ticket) {
+        List<Order> orders = new ArrayList<>(ticket.getOrders());
+        switch (type) {
+            case ORDER_ADDED -> orders.add(order);
+            case ORDER_REMOVED -> orders.remove(orderIndex.intValue());
+            case ORDER_COMMENT -> revise(orders, orderIndex).setComment(text);
+            case ORDER_MERGED -> {
+                Order source = orders.get(orderIndex);
+                Order target = revise(orders, targetIndex);
+                for (OrderItem moved : source.getItems()) {
+                    target.addItem(moved);
+                }
+                orders.remove(orderIndex.intValue());
+            }
+            case ITEM_ADDED -> revise(orders, orderIndex).addItem(item);
+            case ITEM_REMOVED -> revise(orders, orderIndex).removeItemByIndex(itemIndex);
+            case ITEM_COMMENT -> {
+                Order target = revise(orders, orderIndex);
+                OrderItem commented = target.getItems().get(itemIndex).copy();
+                commented.setComment(text);
+                target.replaceItem(itemIndex, commented);
+            }
+            case ITEM_MOVED -> {
+                Order source = revise(orders, orderIndex);
+                OrderItem moved = source.removeItemByIndex(itemIndex);
+                revise(orders, targetIndex).addItem(moved);
+                if (orders.get(orderIndex).getItems().isEmpty()) {
+                    orders.remove(orderIndex.intValue());
+                }
+            }
+            case PRICE_CHANGED -> {
+                Order target = revise(orders, orderIndex);
+                OrderItem priced = target.getItems().get(itemIndex).copy();
+                priced.setMainPrice(price);
+                priced.setSidePrice(0);
+                target.replaceItem(itemIndex, priced);
+            }
+            case TICKET_COMMENT -> {
+                ticket.setComment(text);
+                return;
+            }
+            case STATUS_CHANGED -> {
+                ticket.setStatus(TicketStatus.from(text));
+                return;
+            }
+        }
+        ticket.setOrders(orders);
+    }
+
+    private static Order revise(List<Order> orders, int index) {
+        Order revised = orders.get(index).revise();
+        orders.set(index, revised);
+        return revised;
+    }
+
+    TicketChange detach(long revision) {
+        return new TicketChange(type, orderIndex, itemIndex, targetIndex, order != null ? order.copy() : null,
+                item != null ? item.copy() : null, text, price, revision);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getOrderIndex() {
+        return orderIndex;
+    }
+
+    public Integer getItemIndex() {
+        return itemIndex;
+    }
+
+    public Integer getTargetIndex() {
+        return targetIndex;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public OrderItem getItem() {
+        return item;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Long getPrice() {
+        return price;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ticketer.models;
+
+import java.util.List;
+
+public record TicketChangeSet(long seq, boolean reset, List<Ticket> tickets, List<Integer> removed,
+        List<TicketSummary> archived) {
+
+    public TicketChangeSet(long seq, boolean reset, List<Ticket> tickets, List<Integer> removed) {
+        this(seq, reset, tickets, removed, List.of());
+    }
+
+    public static TicketChangeSet full(long seq, List<Ticket> tickets) {
+        return full(seq, tickets, List.of());
+    }
+
+    public static TicketChangeSet full(long seq, List<Ticket> tickets, List<TicketSummary> archived) {
+        return new TicketChangeSet(seq, true, tickets, List.of(), archived);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ticketer.models;
+
+public record TicketEvent(Type type, int ticketId, TicketStatus status, long revision) {
+
+    public enum Type {
+        TICKET_CREATED, TICKET_UPDATED, TICKET_MOVED, TICKET_REMOVED, KITCHEN_ADDED, KITCHEN_REMOVED, TICKETS_RESET
+    }
+
+    public static TicketEvent of(Type type, Ticket ticket) {
+        return of(type, ticket, ticket.getStatus());
+    }
+
+    public static TicketEvent of(Type type, Ticket ticket, TicketStatus status) {
+        return new TicketEvent(type, ticket.getId(), status, ticket.getRevision());
+    }
+
+    public static TicketEvent reset() {
+        return new TicketEvent(Type.TICKETS_RESET, 0, null, 0);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ticketer.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+public enum TicketStatus {
+    ACTIVE, COMPLETED, CLOSED;
+
+    @JsonCreator
+    public static TicketStatus from(String value) {
+        if (value == null) {
+            return null;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
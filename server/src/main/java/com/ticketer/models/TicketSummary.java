@@ -0,0 +1,78 @@
+package com.ticketer.models;
+
+import java.time.Instant;
+
+public class TicketSummary {
+    private int id;
+    private String tableNumber;
+    private long subtotal;
+    private long total;
+    private Instant createdAt;
+    private Instant closedAt;
+
+    public TicketSummary() {
+    }
+
+    public TicketSummary(int id, String tableNumber, long subtotal, long total, Instant createdAt,
+            Instant closedAt) {
+        this.id = id;
+        this.tableNumber = tableNumber;
+        this.subtotal = subtotal;
+        this.total = total;
+        this.createdAt = createdAt;
+        this.closedAt = closedAt;
+    }
+
+    public static TicketSummary of(Ticket ticket) {
+        return new TicketSummary(ticket.getId(), ticket.getTableNumber(), ticket.getSubtotal(), ticket.getTotal(),
+                ticket.getCreatedAt(), ticket.getClosedAt());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getTableNumber() {
+        return tableNumber;
+    }
+
+    public void setTableNumber(String tableNumber) {
+        this.tableNumber = tableNumber;
+    }
+
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(long subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(Instant closedAt) {
+        this.closedAt = closedAt;
+    }
+}
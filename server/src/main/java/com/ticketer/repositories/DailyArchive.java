@@ -0,0 +1,374 @@
+package com.ticketer.repositories;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketer.models.DailyTicketLog;
+import com.ticketer.models.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Repository
+public class DailyArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyArchive.class);
+    private static final String MANIFEST = "manifest.json";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.json");
+
+    public enum Layout {
+        LEGACY, SEGMENTED;
+
+        static Layout parse(String value) {
+            if (value == null || value.isBlank()) {
+                return LEGACY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown ticket archive layout: " + value, e);
+            }
+        }
+    }
+
+    public enum Compression {
+        NONE, GZIP;
+
+        static Compression parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported ticket archive compression: " + value, e);
+            }
+        }
+    }
+
+    private static class Manifest {
+        public int segments;
+    }
+
+    private record TicketKey(int id, Instant createdAt) {
+        static TicketKey of(Ticket ticket) {
+            return new TicketKey(ticket.getId(), ticket.getCreatedAt());
+        }
+    }
+
+    private final String ticketsDir;
+    private final ObjectMapper objectMapper;
+    private final Layout layout;
+    private final Compression compression;
+    private final Object lock = new Object();
+
+    @Autowired
+    public DailyArchive(
+            @Value("${tickets.dir:data/tickets}") String ticketsDir,
+            @Value("${tickets.archive:legacy}") String layout,
+            @Value("${tickets.archive.compression:none}") String compression,
+            ObjectMapper objectMapper) {
+        this.ticketsDir = ticketsDir;
+        this.objectMapper = objectMapper;
+        this.layout = Layout.parse(layout);
+        this.compression = Compression.parse(compression);
+    }
+
+    public DailyArchive(String ticketsDir, String layout, ObjectMapper objectMapper) {
+        this(ticketsDir, layout, System.getProperty("tickets.archive.compression", "none"), objectMapper);
+    }
+
+    public DailyArchive(String ticketsDir, ObjectMapper objectMapper) {
+        this(ticketsDir, System.getProperty("tickets.archive", "legacy"), objectMapper);
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void append(LocalDate date, List<Ticket> tickets) throws IOException {
+        File directory = new File(ticketsDir);
+        if (!directory.exists()) {
+            boolean created = directory.mkdirs();
+            if (!created && !directory.exists()) {
+                throw new RuntimeException("Failed to create directory: " + ticketsDir);
+            }
+        }
+
+        synchronized (lock) {
+            if (layout == Layout.SEGMENTED) {
+                appendSegment(date, tickets);
+            } else {
+                mergeLegacy(date, tickets);
+            }
+        }
+    }
+
+    public void forEachTicket(LocalDate date, Consumer<Ticket> consumer) throws IOException {
+        visitTickets(date, ticket -> {
+            consumer.accept(ticket);
+            return true;
+        });
+    }
+
+    public List<Ticket> readTickets(LocalDate date) throws IOException {
+        Map<TicketKey, Ticket> latest = new LinkedHashMap<>();
+        for (Path source : sources(date)) {
+            readSource(source, ticket -> {
+                TicketKey key = TicketKey.of(ticket);
+                latest.remove(key);
+                latest.put(key, ticket);
+                return true;
+            });
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    public Optional<Ticket> findTicket(LocalDate date, int id) throws IOException {
+        return findTicket(date, id, null);
+    }
+
+    public Optional<Ticket> findTicket(LocalDate date, int id, Instant createdAt) throws IOException {
+        Ticket[] found = new Ticket[1];
+        visitTickets(date, ticket -> {
+            if (ticket.getId() != id || (createdAt != null && !createdAt.equals(ticket.getCreatedAt()))) {
+                return true;
+            }
+            found[0] = ticket;
+            return false;
+        });
+        return Optional.ofNullable(found[0]);
+    }
+
+    private void visitTickets(LocalDate date, Predicate<Ticket> visitor) throws IOException {
+        List<Path> sources = sources(date);
+        Set<TicketKey> seen = new HashSet<>();
+        Predicate<Ticket> latest = ticket -> !seen.add(TicketKey.of(ticket)) || visitor.test(ticket);
+        for (int i = sources.size() - 1; i >= 0; i--) {
+            if (!readSource(sources.get(i), latest)) {
+                return;
+            }
+        }
+    }
+
+    private boolean readSource(Path source, Predicate<Ticket> visitor) throws IOException {
+        try (InputStream in = openInput(source);
+                JsonParser parser = objectMapper.createParser(in)) {
+            return !toTicketArray(parser) || readTicketArray(parser, visitor);
+        }
+    }
+
+    private List<Path> sources(LocalDate date) {
+        List<Path> sources = new ArrayList<>();
+        File legacy = legacyFile(date);
+        if (legacy.exists()) {
+            sources.add(legacy.toPath());
+        }
+        File dayDirectory = dayDirectory(date);
+        int segments = segmentCount(dayDirectory);
+        for (int segment = 1; segment <= segments; segment++) {
+            File file = segmentFile(dayDirectory, segment);
+            if (file.exists()) {
+                sources.add(file.toPath());
+            }
+        }
+        return sources;
+    }
+
+    private static boolean toTicketArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && field.equals("tickets")) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private boolean readTicketArray(JsonParser parser, Predicate<Ticket> visitor) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (!visitor.test(parser.readValueAs(Ticket.class))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void mergeLegacy(LocalDate date, List<Ticket> tickets) throws IOException {
+        File file = legacyFile(date);
+        List<Ticket> allTickets = new ArrayList<>();
+
+        if (file.exists()) {
+            try (InputStream in = openInput(file.toPath())) {
+                DailyTicketLog dailyLog = objectMapper.readValue(in, DailyTicketLog.class);
+                if (dailyLog.getTickets() != null) {
+                    allTickets.addAll(dailyLog.getTickets());
+                }
+            } catch (IOException e) {
+                throw new IOException("Refusing to overwrite unreadable daily log " + file, e);
+            }
+        }
+
+        Set<TicketKey> replaced = new HashSet<>();
+        tickets.forEach(ticket -> replaced.add(TicketKey.of(ticket)));
+        allTickets.removeIf(ticket -> replaced.contains(TicketKey.of(ticket)));
+        allTickets.addAll(tickets);
+
+        Map<String, Integer> dailyTally = new HashMap<>();
+        long dailySubtotalCents = 0;
+        long dailyTotalCents = 0;
+        int orderCount = 0;
+
+        for (Ticket ticket : allTickets) {
+            Map<String, Integer> ticketTally = ticket.getTally();
+            ticketTally.forEach((item, count) -> dailyTally.merge(item, count, Integer::sum));
+
+            dailySubtotalCents += ticket.getSubtotal();
+            dailyTotalCents += ticket.getTotal();
+            orderCount += ticket.getOrders().size();
+        }
+
+        DailyTicketLog log = new DailyTicketLog(dailyTally, allTickets,
+                dailySubtotalCents, dailyTotalCents, allTickets.size(), orderCount);
+
+        writeAtomically(file.toPath(), log, compression);
+        logger.info("Persisted {} closed tickets to {} (merged with existing)", allTickets.size(), file);
+    }
+
+    private void appendSegment(LocalDate date, List<Ticket> tickets) throws IOException {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        File dayDirectory = dayDirectory(date);
+        Files.createDirectories(dayDirectory.toPath());
+
+        Manifest manifest = new Manifest();
+        manifest.segments = segmentCount(dayDirectory) + 1;
+        writeAtomically(segmentFile(dayDirectory, manifest.segments).toPath(), tickets, compression);
+        writeAtomically(new File(dayDirectory, MANIFEST).toPath(), manifest, Compression.NONE);
+        logger.info("Appended {} closed tickets to {} segment {}", tickets.size(), dayDirectory, manifest.segments);
+    }
+
+    private int segmentCount(File dayDirectory) {
+        int segments = 0;
+        File manifest = new File(dayDirectory, MANIFEST);
+        if (manifest.exists()) {
+            try {
+                segments = objectMapper.readValue(manifest, Manifest.class).segments;
+            } catch (IOException e) {
+                logger.warn("Failed to read archive manifest {}, listing segments instead", manifest, e);
+            }
+        }
+        String[] names = dayDirectory.list();
+        if (names == null) {
+            return segments;
+        }
+        for (String name : names) {
+            Matcher matcher = SEGMENT_NAME.matcher(name);
+            if (matcher.matches()) {
+                segments = Math.max(segments, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return segments;
+    }
+
+    private void writeAtomically(Path target, Object value, Compression codec) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp));
+        if (codec == Compression.GZIP) {
+            out = new GZIPOutputStream(out, 8192);
+        }
+        try (OutputStream stream = out) {
+            objectMapper.writeValue(stream, value);
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException | UnsupportedOperationException e) {
+            logger.debug("Directory {} cannot be synced on this platform", directory);
+        }
+    }
+
+    private static InputStream openInput(Path path) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(path), 8192);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xFF) && second == (GZIPInputStream.GZIP_MAGIC >>> 8)) {
+            try {
+                return new GZIPInputStream(in, 8192);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        return in;
+    }
+
+    private File legacyFile(LocalDate date) {
+        return new File(ticketsDir, date + ".json");
+    }
+
+    private File dayDirectory(LocalDate date) {
+        return new File(ticketsDir, date.toString());
+    }
+
+    private static File segmentFile(File dayDirectory, int segment) {
+        return new File(dayDirectory, String.format("segment-%05d.json", segment));
+    }
+}
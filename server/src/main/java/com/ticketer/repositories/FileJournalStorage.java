@@ -0,0 +1,143 @@
+package com.ticketer.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+class FileJournalStorage implements JournalStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileJournalStorage.class);
+
+    private final Path path;
+    private final byte[] header;
+    private FileChannel channel;
+
+    FileJournalStorage(Path path, byte[] header) {
+        this.path = path;
+        this.header = header;
+    }
+
+    @Override
+    public int headerLength() {
+        return header.length;
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    @Override
+    public void append(ByteBuffer[] records) throws IOException {
+        FileChannel out = openChannel();
+        while (records[records.length - 1].hasRemaining()) {
+            out.write(records);
+        }
+    }
+
+    @Override
+    public void force() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public long truncateHead(long offset) throws IOException {
+        if (offset <= header.length || !Files.exists(path)) {
+            return 0;
+        }
+        close();
+        offset = Math.min(offset, Files.size(path));
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, ByteBuffer.wrap(header));
+            long size = in.size();
+            long position = offset;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            out.force(false);
+        }
+        Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return offset - header.length;
+    }
+
+    @Override
+    public void truncateTail(long length) throws IOException {
+        close();
+        if (length <= header.length) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            out.truncate(length);
+            out.force(false);
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close recovery file: {}", path, e);
+        }
+        channel = null;
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            if (header.length > 0 && channel.size() == 0) {
+                writeFully(channel, ByteBuffer.wrap(header));
+            }
+        }
+        return channel;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
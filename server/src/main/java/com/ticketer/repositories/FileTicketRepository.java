@@ -1,51 +1,152 @@
 package com.ticketer.repositories;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChange;
+import com.ticketer.models.TicketChangeSet;
+import com.ticketer.models.TicketSummary;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
 import java.time.Clock;
 
+import com.ticketer.repositories.RecoveryJournal.Durability;
+import com.ticketer.repositories.RecoveryJournal.Format;
+import com.ticketer.models.TicketStatus;
+
+import jakarta.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 @Repository
+@ConditionalOnProperty(name = "tickets.repository", havingValue = "file", matchIfMissing = true)
 public class FileTicketRepository implements TicketRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(FileTicketRepository.class);
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_TOMBSTONES = 4096;
+    private static final TypeReference<List<TicketChange>> CHANGE_LIST = new TypeReference<>() {
+    };
 
-    private final List<Ticket> activeTickets = new CopyOnWriteArrayList<>();
-    private final List<Ticket> completedTickets = new CopyOnWriteArrayList<>();
-    private final List<Ticket> closedTickets = new CopyOnWriteArrayList<>();
+    private final TicketStore store = new TicketStore();
     private final List<Integer> kitchenTicketIds = new CopyOnWriteArrayList<>();
 
-    private final String ticketsDir;
+    private final DailyArchive dailyArchive;
     private final String recoveryFilePath;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter logWriter;
     private final Clock clock;
     private final Object fileLock = new Object();
+    private final RecoveryJournal journal;
+    private final Format format;
+    private final ObjectMapper binaryMapper;
+    private final RecoveryOptions options;
+    private final File snapshotFile;
+    private final ExecutorService compactionExecutor;
+    private final boolean spillClosed;
+    private final ExecutorService spillExecutor;
+    private final Object archiveLock = new Object();
+    private final Map<Integer, ArchivedTicket> archivedClosed = new ConcurrentSkipListMap<>();
+    private final Map<LocalDate, List<Ticket>> pendingHandoffs = new java.util.TreeMap<>();
+    private final NavigableMap<Long, Integer> tombstones = new java.util.TreeMap<>();
+
+    private long logSeq;
+    private long changeFloor;
+    private int entriesSinceSnapshot;
+    private long bytesSinceSnapshot;
+    private boolean compactionScheduled;
+    private boolean spillScheduled;
+    private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
+    private volatile long generation;
+    private volatile long archivedSubtotal;
+    private volatile long archivedTotal;
+    private volatile int lastTicketId;
+    private volatile java.time.Instant lastTicketCreatedAt;
 
     @Autowired
     public FileTicketRepository(
-            @org.springframework.beans.factory.annotation.Value("${tickets.dir:data/tickets}") String ticketsDir,
             @org.springframework.beans.factory.annotation.Value("${recovery.file:data/recovery.json}") String recoveryFilePath,
+            @org.springframework.beans.factory.annotation.Value("${tickets.closed.spill:false}") boolean spillClosed,
+            RecoveryOptions options,
+            DailyArchive dailyArchive,
             ObjectMapper objectMapper,
             Clock clock) {
-        this.ticketsDir = ticketsDir;
+        if (spillClosed && dailyArchive.getLayout() != DailyArchive.Layout.SEGMENTED) {
+            throw new IllegalArgumentException("tickets.closed.spill requires tickets.archive=segmented");
+        }
+        this.dailyArchive = dailyArchive;
+        this.spillClosed = spillClosed;
         this.recoveryFilePath = recoveryFilePath;
+        this.options = options;
         this.objectMapper = objectMapper;
+        this.logWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
         this.clock = clock;
+        this.format = Format.parse(options.format());
+        this.binaryMapper = objectMapper.copyWith(new CBORFactory());
+        this.journal = new RecoveryJournal(createJournalStorage(Paths.get(recoveryFilePath), options, format),
+                Durability.parse(options.durability()), options.syncIntervalMillis());
+        this.snapshotFile = new File(recoveryFilePath + ".snapshot");
+
+        this.compactionExecutor = backgroundExecutor("recovery-compaction");
+        this.spillExecutor = backgroundExecutor("closed-ticket-spill");
 
         loadStateFromRecoveryFile();
+
+        if (spillClosed && !store.list(TicketStatus.CLOSED).isEmpty()) {
+            scheduleSpill();
+        }
+        if (!pendingHandoffs.isEmpty()) {
+            scheduleHandoff();
+        }
+    }
+
+    public FileTicketRepository(String ticketsDir, String recoveryFilePath, RecoveryOptions options,
+            ObjectMapper objectMapper, Clock clock) {
+        this(recoveryFilePath, Boolean.getBoolean("tickets.closed.spill"), options,
+                new DailyArchive(ticketsDir, objectMapper), objectMapper, clock);
+    }
+
+    public FileTicketRepository(String ticketsDir, String recoveryFilePath, ObjectMapper objectMapper, Clock clock) {
+        this(ticketsDir, recoveryFilePath, RecoveryOptions.fromSystemProperties(), objectMapper, clock);
     }
 
     public FileTicketRepository(ObjectMapper objectMapper, Clock clock) {
@@ -63,234 +164,521 @@ public class FileTicketRepository implements TicketRepository {
         this(ticketsDir, recoveryFilePath, objectMapper, Clock.systemUTC());
     }
 
+    private static JournalStorage createJournalStorage(Path path, RecoveryOptions options, Format format) {
+        String storage = options.storage() == null ? "file" : options.storage().trim().toLowerCase(java.util.Locale.ROOT);
+        return switch (storage) {
+            case "", "file" -> new FileJournalStorage(path, format.header());
+            case "mapped" -> new MappedJournalStorage(path, format.header(), options.segmentBytes());
+            default -> throw new IllegalArgumentException("Unknown recovery storage: " + options.storage());
+        };
+    }
+
+    private static ExecutorService backgroundExecutor(String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    public void close() {
+        spillExecutor.shutdown();
+        compactionExecutor.shutdown();
+        try {
+            spillExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            compactionExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
     @Override
-    public synchronized Ticket save(Ticket ticket) {
-        for (int i = 0; i < activeTickets.size(); i++) {
-            if (activeTickets.get(i).getId() == ticket.getId()) {
-                activeTickets.set(i, ticket);
-                appendLog(new LogEntry(LogType.UPDATE, ticket));
-                return ticket;
+    public Ticket save(Ticket ticket) {
+        CompletableFuture<Void> commit;
+        boolean restored = false;
+        synchronized (this) {
+            synchronized (ticket) {
+                List<TicketChange> changes = ticket.drainChanges();
+                if (!store.contains(ticket.getId()) && unarchive(ticket)) {
+                    store.add(ticket, TicketStatus.CLOSED);
+                    commit = appendLog(new LogEntry(LogType.UPDATE, ticket));
+                    restored = true;
+                } else if (store.get(ticket.getId()) == ticket && !changes.isEmpty()) {
+                    store.refresh(ticket.getId());
+                    commit = appendLog(new LogEntry(ticket.getId(), changes));
+                } else if (store.replace(ticket)) {
+                    commit = appendLog(new LogEntry(LogType.UPDATE, ticket));
+                } else {
+                    store.add(ticket, TicketStatus.ACTIVE);
+                    noteIssued(ticket.getId(), ticket.getCreatedAt());
+                    commit = appendLog(new LogEntry(LogType.CREATE, ticket));
+                }
             }
         }
+        awaitCommit(commit);
+        if (restored && spillClosed) {
+            scheduleSpill();
+        }
+        return ticket;
+    }
 
-        for (int i = 0; i < completedTickets.size(); i++) {
-            if (completedTickets.get(i).getId() == ticket.getId()) {
-                completedTickets.set(i, ticket);
-                appendLog(new LogEntry(LogType.UPDATE, ticket));
-                return ticket;
-            }
+    @Override
+    public Optional<Ticket> findById(int id) {
+        Ticket ticket = store.get(id);
+        if (ticket != null) {
+            return Optional.of(ticket);
+        }
+        ArchivedTicket archived = archivedClosed.get(id);
+        if (archived == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<Ticket> loaded = dailyArchive.findTicket(archived.date, id, archived.summary.getCreatedAt());
+            loaded.ifPresent(t -> t.setStatus(TicketStatus.CLOSED));
+            return loaded;
+        } catch (IOException e) {
+            logger.error("Failed to load archived ticket {} from {}", id, archived.date, e);
+            return Optional.empty();
         }
+    }
+
+    @Override
+    public List<Ticket> findAllActive() {
+        return store.list(TicketStatus.ACTIVE);
+    }
 
-        for (int i = 0; i < closedTickets.size(); i++) {
-            if (closedTickets.get(i).getId() == ticket.getId()) {
-                closedTickets.set(i, ticket);
-                appendLog(new LogEntry(LogType.UPDATE, ticket));
-                return ticket;
+    @Override
+    public List<Ticket> findAllCompleted() {
+        return store.list(TicketStatus.COMPLETED);
+    }
+
+    @Override
+    public List<Ticket> findAllClosed() {
+        if (archivedClosed.isEmpty()) {
+            return store.list(TicketStatus.CLOSED);
+        }
+        Map<LocalDate, Set<Integer>> idsByDate = new java.util.TreeMap<>();
+        archivedClosed.forEach((id, archived) -> idsByDate.computeIfAbsent(archived.date, d -> new HashSet<>()).add(id));
+
+        List<Ticket> closed = new java.util.ArrayList<>();
+        for (Map.Entry<LocalDate, Set<Integer>> day : idsByDate.entrySet()) {
+            try {
+                dailyArchive.forEachTicket(day.getKey(), ticket -> {
+                    if (day.getValue().contains(ticket.getId())) {
+                        ticket.setStatus(TicketStatus.CLOSED);
+                        closed.add(ticket);
+                    }
+                });
+            } catch (IOException e) {
+                logger.error("Failed to load archived tickets for {}", day.getKey(), e);
             }
         }
+        closed.addAll(store.list(TicketStatus.CLOSED));
+        return closed;
+    }
 
-        activeTickets.add(ticket);
-        appendLog(new LogEntry(LogType.CREATE, ticket));
-        return ticket;
+    @Override
+    public List<TicketSummary> findClosedSummaries() {
+        List<TicketSummary> summaries = new java.util.ArrayList<>();
+        archivedClosed.values().forEach(archived -> summaries.add(archived.summary));
+        store.list(TicketStatus.CLOSED).forEach(ticket -> summaries.add(TicketSummary.of(ticket)));
+        return summaries;
     }
 
     @Override
-    public Optional<Ticket> findById(int id) {
-        Optional<Ticket> found = activeTickets.stream().filter(t -> t.getId() == id).findFirst();
-        if (found.isPresent())
-            return found;
+    public List<Ticket> findUnarchivedClosed() {
+        return store.list(TicketStatus.CLOSED);
+    }
 
-        found = completedTickets.stream().filter(t -> t.getId() == id).findFirst();
-        if (found.isPresent())
-            return found;
+    @Override
+    public List<Ticket> findOpenByTable(String tableNumber) {
+        return store.openAtTable(tableNumber);
+    }
 
-        return closedTickets.stream().filter(t -> t.getId() == id).findFirst();
+    @Override
+    public int lastTicketId() {
+        return lastTicketId;
     }
 
     @Override
-    public List<Ticket> findAllActive() {
-        return activeTickets;
+    public Optional<java.time.Instant> lastTicketCreatedAt() {
+        return Optional.ofNullable(lastTicketCreatedAt);
+    }
+
+    private void noteIssued(int id, java.time.Instant createdAt) {
+        if (id >= lastTicketId) {
+            lastTicketId = id;
+            if (createdAt != null) {
+                lastTicketCreatedAt = createdAt;
+            }
+        }
     }
 
     @Override
-    public List<Ticket> findAllCompleted() {
-        return completedTickets;
+    public long closedSubtotal() {
+        return store.subtotal(TicketStatus.CLOSED) + archivedSubtotal;
     }
 
     @Override
-    public List<Ticket> findAllClosed() {
-        return closedTickets;
+    public long closedTotal() {
+        return store.total(TicketStatus.CLOSED) + archivedTotal;
+    }
+
+    @Override
+    public long activeAndCompletedSubtotal() {
+        return store.subtotal(TicketStatus.ACTIVE) + store.subtotal(TicketStatus.COMPLETED);
+    }
+
+    @Override
+    public long activeAndCompletedTotal() {
+        return store.total(TicketStatus.ACTIVE) + store.total(TicketStatus.COMPLETED);
+    }
+
+    synchronized void verifyAggregates() {
+        for (TicketStatus bucket : TicketStatus.values()) {
+            long subtotal = 0;
+            long total = 0;
+            for (Ticket ticket : store.list(bucket)) {
+                synchronized (ticket) {
+                    subtotal += ticket.getSubtotal();
+                    total += ticket.getTotal();
+                }
+            }
+            if (subtotal != store.subtotal(bucket) || total != store.total(bucket)) {
+                throw new IllegalStateException(bucket + " aggregates drifted: running " + store.subtotal(bucket)
+                        + "/" + store.total(bucket) + ", recomputed " + subtotal + "/" + total);
+            }
+        }
+        Map<String, List<Ticket>> byTable = new HashMap<>();
+        for (Ticket ticket : java.util.stream.Stream.concat(store.list(TicketStatus.ACTIVE).stream(),
+                store.list(TicketStatus.COMPLETED).stream()).sorted(java.util.Comparator.comparingInt(Ticket::getId)).toList()) {
+            byTable.computeIfAbsent(TicketStore.tableKey(ticket.getTableNumber()), t -> new java.util.ArrayList<>())
+                    .add(ticket);
+        }
+        byTable.forEach((table, tickets) -> {
+            if (!tickets.equals(store.openAtTable(table))) {
+                throw new IllegalStateException("Table index drifted for table " + table);
+            }
+        });
+        long subtotal = 0;
+        long total = 0;
+        for (ArchivedTicket archived : archivedClosed.values()) {
+            subtotal += archived.summary.getSubtotal();
+            total += archived.summary.getTotal();
+        }
+        if (subtotal != archivedSubtotal || total != archivedTotal) {
+            throw new IllegalStateException("Archived aggregates drifted: running " + archivedSubtotal + "/"
+                    + archivedTotal + ", recomputed " + subtotal + "/" + total);
+        }
+    }
+
+    private void putArchived(ArchivedTicket archived) {
+        ArchivedTicket previous = archivedClosed.put(archived.summary.getId(), archived);
+        long subtotal = archived.summary.getSubtotal();
+        long total = archived.summary.getTotal();
+        if (previous != null) {
+            subtotal -= previous.summary.getSubtotal();
+            total -= previous.summary.getTotal();
+        }
+        archivedSubtotal += subtotal;
+        archivedTotal += total;
+    }
+
+    private boolean unarchive(Ticket ticket) {
+        ArchivedTicket archived = archivedClosed.get(ticket.getId());
+        if (archived == null || (archived.summary.getCreatedAt() != null
+                && !archived.summary.getCreatedAt().equals(ticket.getCreatedAt()))) {
+            return false;
+        }
+        archivedClosed.remove(ticket.getId());
+        archivedSubtotal -= archived.summary.getSubtotal();
+        archivedTotal -= archived.summary.getTotal();
+        return true;
+    }
+
+    private void clearArchived() {
+        archivedClosed.clear();
+        archivedSubtotal = 0;
+        archivedTotal = 0;
     }
 
     @Override
-    public synchronized boolean deleteById(int id) {
-        boolean removed = activeTickets.removeIf(t -> t.getId() == id)
-                || completedTickets.removeIf(t -> t.getId() == id)
-                || closedTickets.removeIf(t -> t.getId() == id);
+    public boolean deleteById(int id) {
+        CompletableFuture<Void> commit = null;
+        boolean removed;
+        synchronized (this) {
+            removed = store.remove(id) != null;
 
-        kitchenTicketIds.remove(Integer.valueOf(id));
+            kitchenTicketIds.remove(Integer.valueOf(id));
 
-        if (removed) {
-            appendLog(new LogEntry(LogType.DELETE, id));
+            if (removed) {
+                commit = appendLog(new LogEntry(LogType.DELETE, id));
+            }
         }
+        awaitCommit(commit);
         return removed;
     }
 
     @Override
     public synchronized void deleteAll() {
-        activeTickets.clear();
-        completedTickets.clear();
-        closedTickets.clear();
+        store.clear();
+        clearArchived();
         kitchenTicketIds.clear();
+        lastTicketId = 0;
+        lastTicketCreatedAt = null;
+        resetChanges(++logSeq);
+        discardRecoveryState();
+        logger.info("Deleted all tickets and recovery file");
+    }
+
+    @Override
+    public synchronized void deleteRecoveryFile() {
+        boolean existed = journal.exists();
+        discardRecoveryState();
         synchronized (fileLock) {
-            File file = new File(recoveryFilePath);
-            if (file.exists()) {
-                file.delete();
+            try {
+                writeSnapshot(logWriter.writeValueAsBytes(sequenceState()));
+            } catch (IOException e) {
+                logger.error("Failed to keep ticket sequence in {}", snapshotFile, e);
             }
         }
-        logger.info("Deleted all tickets and recovery file");
+        if (existed) {
+            logger.info("Deleted recovery file: {}", recoveryFilePath);
+        }
     }
 
-    @Override
-    public void deleteRecoveryFile() {
+    private void discardRecoveryState() {
+        generation++;
+        entriesSinceSnapshot = 0;
+        bytesSinceSnapshot = 0;
         synchronized (fileLock) {
-            File file = new File(recoveryFilePath);
-            if (file.exists()) {
-                if (file.delete()) {
-                    logger.info("Deleted recovery file: {}", recoveryFilePath);
-                } else {
-                    logger.warn("Failed to delete recovery file: {}", recoveryFilePath);
-                }
+            journal.delete();
+            if (snapshotFile.exists() && !snapshotFile.delete()) {
+                logger.warn("Failed to delete recovery snapshot: {}", snapshotFile);
             }
         }
     }
 
     @Override
     public void persistClosedTickets() {
-        String date = LocalDate.now(clock.withZone(java.time.ZoneId.systemDefault())).toString();
-        String filename = ticketsDir + "/" + date + ".json";
+        LocalDate date = LocalDate.now(clock.withZone(java.time.ZoneId.systemDefault()));
 
-        File directory = new File(ticketsDir);
-        if (!directory.exists()) {
-            boolean created = directory.mkdirs();
-            if (!created && !directory.exists()) {
-                throw new RuntimeException("Failed to create directory: " + ticketsDir);
+        synchronized (archiveLock) {
+            try {
+                dailyArchive.append(date, store.list(TicketStatus.CLOSED));
+                synchronized (this) {
+                    store.clear(TicketStatus.CLOSED);
+                    clearArchived();
+                    resetChanges(++logSeq);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to serialize closed tickets", e);
             }
         }
+    }
+
+    @Override
+    public CompletableFuture<Void> rollOver(LocalDate previousDay) {
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            handOff(previousDay);
+            LogEntry entry = new LogEntry(LogType.ROLLOVER, 0);
+            entry.date = previousDay;
+            commit = appendLog(entry);
+        }
+        awaitCommit(commit);
+        logger.info("Rolled over tickets from {}", previousDay);
+        return scheduleHandoff();
+    }
 
-        synchronized (fileLock) {
-            List<Ticket> allTickets = new java.util.ArrayList<>();
-            File file = new File(filename);
+    private void handOff(LocalDate previousDay) {
+        List<Ticket> closed = store.list(TicketStatus.CLOSED);
+        if (!closed.isEmpty()) {
+            pendingHandoffs.merge(previousDay, closed,
+                    (pending, more) -> java.util.stream.Stream.concat(pending.stream(), more.stream()).toList());
+        }
+        store.clear();
+        clearArchived();
+        kitchenTicketIds.clear();
+        lastTicketId = 0;
+        lastTicketCreatedAt = null;
+    }
+
+    private CompletableFuture<Void> scheduleHandoff() {
+        try {
+            return CompletableFuture.runAsync(this::archiveHandoffs, spillExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-            if (file.exists()) {
+    void archiveHandoffs() {
+        synchronized (archiveLock) {
+            Map<LocalDate, List<Ticket>> handoffs;
+            synchronized (this) {
+                handoffs = new java.util.TreeMap<>(pendingHandoffs);
+            }
+            for (Map.Entry<LocalDate, List<Ticket>> handoff : handoffs.entrySet()) {
                 try {
-                    com.ticketer.models.DailyTicketLog dailyLog = objectMapper.readValue(file,
-                            com.ticketer.models.DailyTicketLog.class);
-                    if (dailyLog.getTickets() != null) {
-                        allTickets.addAll(dailyLog.getTickets());
-                    }
+                    dailyArchive.append(handoff.getKey(), handoff.getValue());
                 } catch (IOException e) {
-                    logger.warn("Failed to read existing daily log from file {}, overwriting.", filename, e);
+                    logger.error("Failed to archive tickets handed off from {}", handoff.getKey(), e);
+                    return;
                 }
+                synchronized (this) {
+                    pendingHandoffs.remove(handoff.getKey(), handoff.getValue());
+                }
+                logger.info("Archived {} closed tickets handed off from {}", handoff.getValue().size(),
+                        handoff.getKey());
             }
+        }
+        scheduleCompaction();
+    }
 
-            allTickets.addAll(closedTickets);
-
-            java.util.Map<String, Integer> dailyTally = new java.util.HashMap<>();
-            int dailySubtotalCents = 0;
-            int dailyTotalCents = 0;
-            int orderCount = 0;
-
-            for (Ticket ticket : allTickets) {
-                java.util.Map<String, Integer> ticketTally = ticket.getTally();
-                ticketTally.forEach((item, count) -> dailyTally.merge(item, count, Integer::sum));
-
-                dailySubtotalCents += ticket.getSubtotal();
-                dailyTotalCents += ticket.getTotal();
-                orderCount += ticket.getOrders().size();
+    void spillClosedTickets() {
+        synchronized (this) {
+            spillScheduled = false;
+        }
+        LocalDate date = LocalDate.now(clock.withZone(java.time.ZoneId.systemDefault()));
+        CompletableFuture<Void> commit = null;
+        synchronized (archiveLock) {
+            List<Ticket> closed = store.list(TicketStatus.CLOSED).stream()
+                    .filter(t -> !kitchenTicketIds.contains(t.getId()))
+                    .toList();
+            if (closed.isEmpty()) {
+                return;
             }
-
-            com.ticketer.models.DailyTicketLog log = new com.ticketer.models.DailyTicketLog(dailyTally, allTickets,
-                    dailySubtotalCents, dailyTotalCents, allTickets.size(), orderCount);
-
-            try (FileWriter writer = new FileWriter(filename)) {
-                objectMapper.writeValue(writer, log);
-                logger.info("Persisted {} closed tickets to {} (merged with existing)", allTickets.size(), filename);
-                closedTickets.clear();
+            try {
+                dailyArchive.append(date, closed);
             } catch (IOException e) {
-                throw new RuntimeException("Failed to serialize closed tickets", e);
+                logger.error("Failed to spill closed tickets to the daily archive", e);
+                return;
+            }
+            synchronized (this) {
+                for (Ticket ticket : closed) {
+                    if (store.get(ticket.getId()) != ticket || store.bucketOf(ticket.getId()) != TicketStatus.CLOSED) {
+                        continue;
+                    }
+                    TicketSummary summary;
+                    synchronized (ticket) {
+                        summary = TicketSummary.of(ticket);
+                    }
+                    store.remove(ticket.getId());
+                    putArchived(new ArchivedTicket(summary, date));
+                    commit = appendLog(new LogEntry(summary, date));
+                }
             }
         }
+        awaitCommit(commit);
+        logger.info("Spilled closed tickets to the daily archive for {}", date);
+    }
+
+    private synchronized void scheduleSpill() {
+        if (spillScheduled) {
+            return;
+        }
+        spillScheduled = true;
+        try {
+            spillExecutor.execute(this::spillClosedTickets);
+        } catch (RejectedExecutionException e) {
+            spillScheduled = false;
+        }
     }
 
     @Override
-    public synchronized void moveToCompleted(int id) {
-        Optional<Ticket> ticketOpt = activeTickets.stream().filter(t -> t.getId() == id).findFirst();
-        if (ticketOpt.isPresent()) {
-            Ticket ticket = ticketOpt.get();
-            activeTickets.remove(ticket);
-            completedTickets.add(ticket);
-            appendLog(new LogEntry(LogType.MOVE_COMPLETED, id));
+    public void moveToCompleted(int id) {
+        CompletableFuture<Void> commit = null;
+        synchronized (this) {
+            Ticket ticket = transition(id, TicketStatus.COMPLETED);
+            if (ticket != null) {
+                commit = appendLog(new LogEntry(LogType.MOVE_COMPLETED, ticket, ticket.drainChanges()));
+            }
         }
+        awaitCommit(commit);
     }
 
     @Override
-    public synchronized void moveToClosed(int id) {
+    public void moveToClosed(int id) {
         moveToClosed(id, true);
     }
 
-    public synchronized void moveToClosed(int id, boolean setTimestamp) {
-        Optional<Ticket> ticketOpt = activeTickets.stream().filter(t -> t.getId() == id).findFirst();
-        if (ticketOpt.isPresent()) {
-            Ticket ticket = ticketOpt.get();
-            activeTickets.remove(ticket);
-            if (setTimestamp) {
-                ticket.setClosedAt(java.time.Instant.now(clock));
-            } else {
-                ticket.setClosedAt(null);
+    public void moveToClosed(int id, boolean setTimestamp) {
+        CompletableFuture<Void> commit = null;
+        synchronized (this) {
+            Ticket ticket = transition(id, TicketStatus.CLOSED);
+            if (ticket != null) {
+                if (setTimestamp) {
+                    ticket.setClosedAt(java.time.Instant.now(clock));
+                } else {
+                    ticket.setClosedAt(null);
+                }
+                commit = appendLog(new LogEntry(LogType.MOVE_CLOSED, ticket, ticket.drainChanges()));
             }
-            closedTickets.add(ticket);
-            appendLog(new LogEntry(LogType.MOVE_CLOSED, id));
-            return;
         }
-        ticketOpt = completedTickets.stream().filter(t -> t.getId() == id).findFirst();
-        if (ticketOpt.isPresent()) {
-            Ticket ticket = ticketOpt.get();
-            completedTickets.remove(ticket);
-            if (setTimestamp) {
-                ticket.setClosedAt(java.time.Instant.now(clock));
-            } else {
+        awaitCommit(commit);
+        if (spillClosed && commit != null) {
+            scheduleSpill();
+        }
+    }
+
+    @Override
+    public void moveToActive(int id) {
+        CompletableFuture<Void> commit = null;
+        synchronized (this) {
+            Ticket ticket = transition(id, TicketStatus.ACTIVE);
+            if (ticket != null) {
                 ticket.setClosedAt(null);
+                commit = appendLog(new LogEntry(LogType.MOVE_ACTIVE, ticket, ticket.drainChanges()));
             }
-            closedTickets.add(ticket);
-            appendLog(new LogEntry(LogType.MOVE_CLOSED, id));
         }
+        awaitCommit(commit);
     }
 
-    @Override
-    public synchronized void moveToActive(int id) {
-        Optional<Ticket> ticketOpt = completedTickets.stream().filter(t -> t.getId() == id).findFirst();
-        if (ticketOpt.isPresent()) {
-            Ticket ticket = ticketOpt.get();
-            completedTickets.remove(ticket);
-            ticket.setClosedAt(null);
-            activeTickets.add(ticket);
-            appendLog(new LogEntry(LogType.MOVE_ACTIVE, id));
+    private Ticket transition(int id, TicketStatus target) {
+        TicketStatus current = store.bucketOf(id);
+        if (current == null) {
+            return null;
         }
+        TicketTransitions.require(current, target);
+        return move(id, target);
+    }
+
+    private Ticket move(int id, TicketStatus target) {
+        Ticket ticket = store.move(id, target, TicketTransitions.sources(target));
+        if (ticket != null) {
+            ticket.setStatus(target);
+        }
+        return ticket;
     }
 
     @Override
-    public synchronized void addTicketToKitchen(int id) {
-        if (!kitchenTicketIds.contains(id)) {
-            kitchenTicketIds.add(id);
-            appendLog(new LogEntry(LogType.ADD_TO_KITCHEN, id));
+    public void addTicketToKitchen(int id) {
+        CompletableFuture<Void> commit = null;
+        synchronized (this) {
+            if (!kitchenTicketIds.contains(id)) {
+                kitchenTicketIds.add(id);
+                commit = appendLog(new LogEntry(LogType.ADD_TO_KITCHEN, id));
+            }
         }
+        awaitCommit(commit);
     }
 
     @Override
-    public synchronized void removeTicketFromKitchen(int id) {
-        if (kitchenTicketIds.remove(Integer.valueOf(id))) {
-            appendLog(new LogEntry(LogType.REMOVE_FROM_KITCHEN, id));
+    public void removeTicketFromKitchen(int id) {
+        CompletableFuture<Void> commit = null;
+        synchronized (this) {
+            if (kitchenTicketIds.remove(Integer.valueOf(id))) {
+                commit = appendLog(new LogEntry(LogType.REMOVE_FROM_KITCHEN, id));
+            }
+        }
+        awaitCommit(commit);
+        if (spillClosed && commit != null && store.bucketOf(id) == TicketStatus.CLOSED) {
+            scheduleSpill();
         }
     }
 
@@ -303,52 +691,402 @@ public class FileTicketRepository implements TicketRepository {
         return result;
     }
 
-    private void appendLog(LogEntry entry) {
-        File file = new File(recoveryFilePath);
-        File parent = file.getParentFile();
-        if (parent != null)
-            parent.mkdirs();
+    private CompletableFuture<Void> appendLog(LogEntry entry) {
+        entry.seq = ++logSeq;
+        trackChange(entry);
+        byte[] line;
+        try {
+            line = encodeLogEntry(entry);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        lastCommit = journal.append(line);
+        entriesSinceSnapshot++;
+        bytesSinceSnapshot += line.length;
+        if (entriesSinceSnapshot >= options.snapshotEntries() || bytesSinceSnapshot >= options.snapshotBytes()) {
+            scheduleCompaction();
+        }
+        return lastCommit;
+    }
 
-        synchronized (fileLock) {
-            try (FileWriter writer = new FileWriter(file, true)) {
-                String json = objectMapper.writer()
-                        .without(com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT)
-                        .writeValueAsString(entry);
-                writer.write(json + "\n");
-            } catch (IOException e) {
-                logger.error("Failed to append recovery state", e);
+    private void trackChange(LogEntry entry) {
+        switch (entry.type) {
+            case CREATE, UPDATE, CHANGE, MOVE_COMPLETED, MOVE_CLOSED, MOVE_ACTIVE ->
+                store.stamp(entry.ticketId, entry.seq);
+            case DELETE -> {
+                tombstones.put(entry.seq, entry.ticketId);
+                if (tombstones.size() > MAX_TOMBSTONES) {
+                    changeFloor = Math.max(changeFloor, tombstones.pollFirstEntry().getKey());
+                }
+            }
+            case ROLLOVER -> resetChanges(entry.seq);
+            default -> {
+            }
+        }
+    }
+
+    private void resetChanges(long seq) {
+        tombstones.clear();
+        changeFloor = seq;
+    }
+
+    @Override
+    public synchronized TicketChangeSet changesSince(long seq) {
+        if (seq > 0 && seq >= changeFloor && seq <= logSeq) {
+            return new TicketChangeSet(logSeq, false, store.changedSince(seq),
+                    List.copyOf(tombstones.tailMap(seq, false).values()));
+        }
+        List<Ticket> tickets = new java.util.ArrayList<>(store.list(TicketStatus.ACTIVE));
+        tickets.addAll(store.list(TicketStatus.COMPLETED));
+        tickets.addAll(store.list(TicketStatus.CLOSED));
+        List<TicketSummary> archived = archivedClosed.values().stream().map(entry -> entry.summary).toList();
+        return TicketChangeSet.full(logSeq, tickets, archived);
+    }
+
+    private synchronized void scheduleCompaction() {
+        if (compactionScheduled) {
+            return;
+        }
+        compactionScheduled = true;
+        try {
+            compactionExecutor.execute(this::compact);
+        } catch (RejectedExecutionException e) {
+            compactionScheduled = false;
+        }
+    }
+
+    private byte[] encodeLogEntry(LogEntry entry) throws IOException {
+        if (format == Format.BINARY) {
+            byte[] payload = binaryMapper.writeValueAsBytes(entry);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            return ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                    .putInt(payload.length)
+                    .putInt((int) crc.getValue())
+                    .put(payload)
+                    .array();
+        }
+        byte[] json = logWriter.writeValueAsBytes(entry);
+        byte[] line = java.util.Arrays.copyOf(json, json.length + 1);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    void compact() {
+        try {
+            byte[] snapshot;
+            long cutOffset;
+            long capturedGeneration;
+            CompletableFuture<Void> barrier;
+            synchronized (this) {
+                try {
+                    snapshot = captureSnapshot();
+                } catch (IOException e) {
+                    logger.error("Failed to serialize recovery snapshot", e);
+                    return;
+                }
+                cutOffset = journal.length();
+                barrier = lastCommit;
+                capturedGeneration = generation;
+                entriesSinceSnapshot = 0;
+                bytesSinceSnapshot = 0;
+            }
+
+            try {
+                barrier.join();
+            } catch (Exception e) {
+                logger.warn("Recovery journal write failed before compaction; skipping", e);
+                return;
+            }
+
+            synchronized (fileLock) {
+                if (capturedGeneration != generation) {
+                    return;
+                }
+                try {
+                    writeSnapshot(snapshot);
+                    journal.truncateHead(cutOffset);
+                    logger.info("Compacted recovery journal into snapshot {}", snapshotFile);
+                } catch (IOException e) {
+                    logger.error("Failed to compact recovery journal", e);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                compactionScheduled = false;
+            }
+        }
+    }
+
+    private byte[] captureSnapshot() throws IOException {
+        ObjectNode state = sequenceState();
+        state.set("active", snapshotTickets(TicketStatus.ACTIVE));
+        state.set("completed", snapshotTickets(TicketStatus.COMPLETED));
+        state.set("closed", snapshotTickets(TicketStatus.CLOSED));
+        state.set("archived", objectMapper.valueToTree(archivedClosed.values()));
+        state.set("kitchen", objectMapper.valueToTree(kitchenTicketIds));
+        ArrayNode handoffs = state.putArray("handoffs");
+        pendingHandoffs.forEach((date, tickets) -> handoffs.add(objectMapper.valueToTree(new Handoff(date, tickets))));
+        return logWriter.writeValueAsBytes(state);
+    }
+
+    private ObjectNode sequenceState() {
+        ObjectNode state = objectMapper.createObjectNode();
+        state.put("seq", logSeq);
+        state.put("lastTicketId", lastTicketId);
+        state.set("lastTicketCreatedAt", objectMapper.valueToTree(lastTicketCreatedAt));
+        return state;
+    }
+
+    private ArrayNode snapshotTickets(TicketStatus bucket) {
+        ArrayNode tickets = objectMapper.createArrayNode();
+        for (Ticket ticket : store.list(bucket)) {
+            synchronized (ticket) {
+                tickets.add(objectMapper.<ObjectNode>valueToTree(ticket));
             }
         }
+        return tickets;
+    }
+
+    private void writeSnapshot(byte[] snapshot) throws IOException {
+        Path target = snapshotFile.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void awaitCommit(CompletableFuture<Void> commit) {
+        if (commit == null) {
+            return;
+        }
+        try {
+            commit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Failed to append recovery state", e.getCause());
+        }
     }
 
     private void loadStateFromRecoveryFile() {
-        File file = new File(recoveryFilePath);
-        if (!file.exists())
+        long snapshotSeq = loadSnapshot();
+        logSeq = snapshotSeq;
+
+        if (!journal.exists()) {
+            applyBucketStatuses();
+            changeFloor = logSeq;
             return;
+        }
 
         synchronized (fileLock) {
-            try (FileReader reader = new FileReader(file);
-                    java.io.BufferedReader bufferedReader = new java.io.BufferedReader(reader)) {
-
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    if (line.trim().isEmpty())
-                        continue;
-                    try {
-                        LogEntry entry = objectMapper.readValue(line, LogEntry.class);
-                        replayLogEntry(entry);
-                    } catch (Exception e) {
-                        logger.warn("Skipping malformed or legacy log line: " + line, e);
+            try {
+                Format existing;
+                try (java.io.InputStream in = journal.openStream()) {
+                    existing = Format.detect(in);
+                }
+                ReplayPlan plan = new ReplayPlan();
+                forEachRecord(existing, true, (ordinal, parser) -> {
+                    LogEntry entry = readLogEntry(parser, ordinal, null);
+                    if (entry.hasState && (entry.seq == 0 || entry.seq > snapshotSeq)) {
+                        plan.fullState(entry.ticketId, ordinal);
                     }
+                });
+                if (journal.exists()) {
+                    forEachRecord(existing, false,
+                            (ordinal, parser) -> replayRecord(ordinal, parser, plan, snapshotSeq));
+                }
+                if (existing != format && journal.length() > 0) {
+                    migrateJournal(existing);
                 }
             } catch (IOException e) {
                 logger.error("Failed to load recovery state", e);
             }
         }
+        bytesSinceSnapshot = journal.length();
+
+        applyBucketStatuses();
+        changeFloor = logSeq;
+    }
+
+    private void forEachRecord(Format existing, boolean validate, RecordHandler handler) throws IOException {
+        if (existing == Format.BINARY) {
+            forEachBinaryRecord(validate, handler);
+        } else {
+            forEachJsonRecord(validate, handler);
+        }
+    }
+
+    private void forEachJsonRecord(boolean reportErrors, RecordHandler handler) throws IOException {
+        try (java.io.BufferedReader bufferedReader = new java.io.BufferedReader(
+                new java.io.InputStreamReader(journal.openStream(), java.nio.charset.StandardCharsets.UTF_8))) {
+
+            long ordinal = 0;
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (line.trim().isEmpty())
+                    continue;
+                try (JsonParser parser = objectMapper.createParser(line)) {
+                    handler.handle(ordinal, parser);
+                } catch (Exception e) {
+                    if (reportErrors) {
+                        logger.warn("Skipping malformed or legacy log line: " + line, e);
+                    }
+                }
+                ordinal++;
+            }
+        }
+    }
+
+    private void forEachBinaryRecord(boolean truncateTornTail, RecordHandler handler) throws IOException {
+        long validLength = Format.BINARY.header().length;
+        long totalLength = journal.length();
+        try (java.io.DataInputStream in = new java.io.DataInputStream(
+                new java.io.BufferedInputStream(journal.openStream()))) {
+            in.skipNBytes(validLength);
+            CRC32C crc = new CRC32C();
+            long ordinal = 0;
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > totalLength - validLength) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                } catch (java.io.EOFException e) {
+                    break;
+                }
+                if (payload.length != length) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                try (JsonParser parser = binaryMapper.createParser(payload)) {
+                    handler.handle(ordinal, parser);
+                } catch (Exception e) {
+                    if (truncateTornTail) {
+                        logger.warn("Skipping unreadable recovery record at offset {}", validLength, e);
+                    }
+                }
+                ordinal++;
+                validLength += RECORD_HEADER_BYTES + length;
+            }
+        }
+        if (truncateTornTail && validLength < totalLength) {
+            logger.warn("Truncating torn recovery log tail: {} of {} bytes valid", validLength, totalLength);
+            journal.truncateTail(validLength);
+        }
+    }
+
+    private void replayRecord(long ordinal, JsonParser parser, ReplayPlan plan, long snapshotSeq)
+            throws IOException {
+        LogEntry entry = readLogEntry(parser, ordinal, plan);
+        if (entry.type == null || (entry.seq != 0 && entry.seq <= snapshotSeq)) {
+            return;
+        }
+        if (entry.type == LogType.CREATE) {
+            noteIssued(entry.ticketId, entry.ticket != null ? entry.ticket.getCreatedAt() : null);
+        }
+        if (entry.hasState && entry.ticket == null) {
+            if (!store.contains(entry.ticketId)) {
+                store.add(new Ticket(entry.ticketId), TicketStatus.ACTIVE);
+            }
+        } else if (entry.type != LogType.CHANGE || entry.changes != null) {
+            replayLogEntry(entry);
+        }
+        logSeq = Math.max(logSeq, entry.seq);
+        entriesSinceSnapshot++;
+    }
+
+    private LogEntry readLogEntry(JsonParser parser, long ordinal, ReplayPlan plan) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a recovery log object");
+        }
+        LogEntry entry = new LogEntry();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "seq" -> entry.seq = parser.getLongValue();
+                case "type" -> entry.type = LogType.valueOf(parser.getText());
+                case "ticketId" -> entry.ticketId = parser.getIntValue();
+                case "summary" -> entry.summary = parser.readValueAs(TicketSummary.class);
+                case "date" -> entry.date = parser.readValueAs(LocalDate.class);
+                case "ticket" -> {
+                    entry.hasState = value == JsonToken.START_OBJECT;
+                    if (entry.hasState && plan != null && plan.isLatestState(ordinal)) {
+                        entry.ticket = parser.readValueAs(Ticket.class);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "changes" -> {
+                    if (value != JsonToken.VALUE_NULL && plan != null
+                            && plan.isAfterLatestState(entry.ticketId, ordinal)) {
+                        entry.changes = parser.readValueAs(CHANGE_LIST);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return entry;
+    }
+
+    private void migrateJournal(Format existing) throws IOException {
+        writeSnapshot(captureSnapshot());
+        journal.delete();
+        entriesSinceSnapshot = 0;
+        logger.info("Migrated recovery log from {} to {} format", existing, format);
+    }
+
+    private long loadSnapshot() {
+        if (!snapshotFile.exists()) {
+            return 0;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(snapshotFile, Snapshot.class);
+            snapshot.active.forEach(t -> store.add(t, TicketStatus.ACTIVE));
+            snapshot.completed.forEach(t -> store.add(t, TicketStatus.COMPLETED));
+            snapshot.closed.forEach(t -> store.add(t, TicketStatus.CLOSED));
+            snapshot.archived.forEach(this::putArchived);
+            kitchenTicketIds.addAll(snapshot.kitchen);
+            lastTicketId = snapshot.lastTicketId;
+            lastTicketCreatedAt = snapshot.lastTicketCreatedAt;
+            snapshot.handoffs.forEach(h -> pendingHandoffs.put(h.date, h.tickets));
+            return snapshot.seq;
+        } catch (IOException e) {
+            logger.error("Failed to load recovery snapshot {}", snapshotFile, e);
+            return 0;
+        }
+    }
 
-        activeTickets.forEach(t -> t.setStatus("ACTIVE"));
-        completedTickets.forEach(t -> t.setStatus("COMPLETED"));
-        closedTickets.forEach(t -> t.setStatus("CLOSED"));
+    private void applyBucketStatuses() {
+        store.refreshAll();
+        if (lastTicketCreatedAt == null && store.get(lastTicketId) != null) {
+            lastTicketCreatedAt = store.get(lastTicketId).getCreatedAt();
+        }
+        for (TicketStatus status : TicketStatus.values()) {
+            store.list(status).forEach(t -> t.setStatus(status));
+        }
     }
 
     private void replayLogEntry(LogEntry entry) {
@@ -362,18 +1100,35 @@ public class FileTicketRepository implements TicketRepository {
                     upsertTicket(entry.ticket);
                 }
                 break;
+            case CHANGE:
+                replayChanges(entry);
+                break;
             case MOVE_COMPLETED:
+                replayChanges(entry);
                 moveTicketToCompleted(entry.ticketId);
                 break;
             case MOVE_CLOSED:
+                replayChanges(entry);
                 moveTicketToClosedReplay(entry.ticketId);
                 break;
             case MOVE_ACTIVE:
+                replayChanges(entry);
                 moveTicketToActiveReplay(entry.ticketId);
                 break;
             case DELETE:
                 deleteTicketInternal(entry.ticketId);
                 break;
+            case ARCHIVED:
+                store.remove(entry.ticketId);
+                if (entry.summary != null) {
+                    putArchived(new ArchivedTicket(entry.summary, entry.date));
+                }
+                break;
+            case ROLLOVER:
+                if (entry.date != null) {
+                    handOff(entry.date);
+                }
+                break;
             case ADD_TO_KITCHEN:
                 if (!kitchenTicketIds.contains(entry.ticketId)) {
                     kitchenTicketIds.add(entry.ticketId);
@@ -385,78 +1140,128 @@ public class FileTicketRepository implements TicketRepository {
         }
     }
 
-    private void upsertTicket(Ticket ticket) {
-        for (int i = 0; i < activeTickets.size(); i++) {
-            if (activeTickets.get(i).getId() == ticket.getId()) {
-                activeTickets.set(i, ticket);
-                return;
-            }
+    private void replayChanges(LogEntry entry) {
+        Ticket target = store.get(entry.ticketId);
+        if (target != null && entry.changes != null) {
+            entry.changes.forEach(target::replay);
         }
-        for (int i = 0; i < completedTickets.size(); i++) {
-            if (completedTickets.get(i).getId() == ticket.getId()) {
-                completedTickets.set(i, ticket);
-                return;
-            }
+    }
+
+    private void upsertTicket(Ticket ticket) {
+        if (!store.replace(ticket)) {
+            store.add(ticket, unarchive(ticket) ? TicketStatus.CLOSED : TicketStatus.ACTIVE);
         }
-        activeTickets.add(ticket);
     }
 
     private void moveTicketToCompleted(int id) {
-        Optional<Ticket> t = activeTickets.stream().filter(x -> x.getId() == id).findFirst();
-        if (t.isPresent()) {
-            activeTickets.remove(t.get());
-            t.get().setStatus("COMPLETED");
-            completedTickets.add(t.get());
-        }
+        move(id, TicketStatus.COMPLETED);
     }
 
     private void moveTicketToClosedReplay(int id) {
-        Optional<Ticket> t = activeTickets.stream().filter(x -> x.getId() == id).findFirst();
-        if (t.isPresent()) {
-            activeTickets.remove(t.get());
-            if (t.get().getClosedAt() == null) {
-                t.get().setClosedAt(java.time.Instant.now(clock));
-            }
-            t.get().setStatus("CLOSED");
-            closedTickets.add(t.get());
-            return;
-        }
-        t = completedTickets.stream().filter(x -> x.getId() == id).findFirst();
-        if (t.isPresent()) {
-            completedTickets.remove(t.get());
-            if (t.get().getClosedAt() == null) {
-                t.get().setClosedAt(java.time.Instant.now(clock));
-            }
-            t.get().setStatus("CLOSED");
-            closedTickets.add(t.get());
+        Ticket t = move(id, TicketStatus.CLOSED);
+        if (t != null && t.getClosedAt() == null) {
+            t.setClosedAt(java.time.Instant.now(clock));
         }
     }
 
     private void moveTicketToActiveReplay(int id) {
-        Optional<Ticket> t = completedTickets.stream().filter(x -> x.getId() == id).findFirst();
-        if (t.isPresent()) {
-            completedTickets.remove(t.get());
-            t.get().setClosedAt(null);
-            t.get().setStatus("ACTIVE");
-            activeTickets.add(t.get());
+        Ticket t = move(id, TicketStatus.ACTIVE);
+        if (t != null) {
+            t.setClosedAt(null);
         }
     }
 
     private void deleteTicketInternal(int id) {
-        activeTickets.removeIf(t -> t.getId() == id);
-        completedTickets.removeIf(t -> t.getId() == id);
-        closedTickets.removeIf(t -> t.getId() == id);
+        store.remove(id);
+    }
+
+    private interface RecordHandler {
+        void handle(long ordinal, JsonParser parser) throws IOException;
+    }
+
+    private static final class ReplayPlan {
+        private final Map<Integer, Long> latestState = new HashMap<>();
+        private final Set<Long> latestOrdinals = new HashSet<>();
+
+        private void fullState(int ticketId, long ordinal) {
+            Long previous = latestState.put(ticketId, ordinal);
+            if (previous != null) {
+                latestOrdinals.remove(previous);
+            }
+            latestOrdinals.add(ordinal);
+        }
+
+        private boolean isLatestState(long ordinal) {
+            return latestOrdinals.contains(ordinal);
+        }
+
+        private boolean isAfterLatestState(int ticketId, long ordinal) {
+            return ordinal > latestState.getOrDefault(ticketId, -1L);
+        }
     }
 
+    private static class Snapshot {
+        public long seq;
+        public List<Ticket> active = new java.util.ArrayList<>();
+        public List<Ticket> completed = new java.util.ArrayList<>();
+        public List<Ticket> closed = new java.util.ArrayList<>();
+        public List<ArchivedTicket> archived = new java.util.ArrayList<>();
+        public List<Integer> kitchen = new java.util.ArrayList<>();
+        public int lastTicketId;
+        public java.time.Instant lastTicketCreatedAt;
+        public List<Handoff> handoffs = new java.util.ArrayList<>();
+    }
+
+    private static class Handoff {
+        public LocalDate date;
+        public List<Ticket> tickets;
+
+        @SuppressWarnings("unused")
+        public Handoff() {
+        }
+
+        public Handoff(LocalDate date, List<Ticket> tickets) {
+            this.date = date;
+            this.tickets = tickets;
+        }
+    }
+
+    private static class ArchivedTicket {
+        public TicketSummary summary;
+        public LocalDate date;
+
+        @SuppressWarnings("unused")
+        public ArchivedTicket() {
+        }
+
+        public ArchivedTicket(TicketSummary summary, LocalDate date) {
+            this.summary = summary;
+            this.date = date;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private static class LogEntry {
+        public long seq;
         public LogType type;
         public Ticket ticket;
         public int ticketId;
+        public List<TicketChange> changes;
+        public TicketSummary summary;
+        public LocalDate date;
+        @com.fasterxml.jackson.annotation.JsonIgnore
+        private boolean hasState;
 
         @SuppressWarnings("unused")
         public LogEntry() {
         }
 
+        public LogEntry(int ticketId, List<TicketChange> changes) {
+            this.type = LogType.CHANGE;
+            this.ticketId = ticketId;
+            this.changes = changes;
+        }
+
         public LogEntry(LogType type, Ticket ticket) {
             this.type = type;
             this.ticket = ticket;
@@ -464,13 +1269,26 @@ public class FileTicketRepository implements TicketRepository {
                 this.ticketId = ticket.getId();
         }
 
+        public LogEntry(LogType type, Ticket ticket, List<TicketChange> changes) {
+            this.type = type;
+            this.ticketId = ticket.getId();
+            this.changes = changes.isEmpty() ? null : changes;
+        }
+
         public LogEntry(LogType type, int ticketId) {
             this.type = type;
             this.ticketId = ticketId;
         }
+
+        public LogEntry(TicketSummary summary, LocalDate date) {
+            this.type = LogType.ARCHIVED;
+            this.ticketId = summary.getId();
+            this.summary = summary;
+            this.date = date;
+        }
     }
 
     private enum LogType {
-        CREATE, UPDATE, MOVE_COMPLETED, MOVE_CLOSED, MOVE_ACTIVE, DELETE, ADD_TO_KITCHEN, REMOVE_FROM_KITCHEN
+        CREATE, UPDATE, CHANGE, MOVE_COMPLETED, MOVE_CLOSED, MOVE_ACTIVE, DELETE, ADD_TO_KITCHEN, REMOVE_FROM_KITCHEN, ARCHIVED, ROLLOVER
     }
 }
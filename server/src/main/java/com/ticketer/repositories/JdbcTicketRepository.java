@@ -0,0 +1,536 @@
+package com.ticketer.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChange;
+import com.ticketer.models.TicketStatus;
+import com.ticketer.models.TicketSummary;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+@ConditionalOnProperty(name = "tickets.repository", havingValue = "jdbc")
+public class JdbcTicketRepository implements TicketRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcTicketRepository.class);
+
+    private static final String[] SCHEMA = {
+            "CREATE SEQUENCE IF NOT EXISTS ticket_bucket_seq",
+            "CREATE TABLE IF NOT EXISTS tickets ("
+                    + "id INT PRIMARY KEY, "
+                    + "status VARCHAR(16) NOT NULL, "
+                    + "bucket_seq BIGINT NOT NULL, "
+                    + "table_number VARCHAR(255), "
+                    + "table_key VARCHAR(255) NOT NULL, "
+                    + "subtotal BIGINT NOT NULL, "
+                    + "total BIGINT NOT NULL, "
+                    + "created_at TIMESTAMP(9) WITH TIME ZONE NOT NULL, "
+                    + "closed_at TIMESTAMP(9) WITH TIME ZONE, "
+                    + "body CHARACTER LARGE OBJECT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS tickets_status_idx ON tickets (status, bucket_seq)",
+            "CREATE INDEX IF NOT EXISTS tickets_table_idx ON tickets (table_key, status)",
+            "CREATE INDEX IF NOT EXISTS tickets_created_idx ON tickets (created_at)",
+            "CREATE INDEX IF NOT EXISTS tickets_closed_idx ON tickets (closed_at)",
+            "CREATE TABLE IF NOT EXISTS kitchen ("
+                    + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "ticket_id INT NOT NULL UNIQUE REFERENCES tickets (id) ON DELETE CASCADE)",
+            "CREATE TABLE IF NOT EXISTS ticket_sequence ("
+                    + "id INT PRIMARY KEY, "
+                    + "last_ticket_id INT NOT NULL, "
+                    + "last_created_at TIMESTAMP(9) WITH TIME ZONE)",
+            "INSERT INTO ticket_sequence (id, last_ticket_id) "
+                    + "SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM ticket_sequence)"
+    };
+
+    private static final String SELECT_TICKET = "SELECT status, closed_at, body FROM tickets";
+    private static final String UPDATE_TICKET = "UPDATE tickets SET table_number = ?, table_key = ?, subtotal = ?, "
+            + "total = ?, body = ? WHERE id = ?";
+    private static final String INSERT_TICKET = "INSERT INTO tickets (id, status, bucket_seq, table_number, table_key, "
+            + "subtotal, total, created_at, closed_at, body) "
+            + "VALUES (?, ?, NEXT VALUE FOR ticket_bucket_seq, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS = "UPDATE tickets SET status = ?, "
+            + "bucket_seq = NEXT VALUE FOR ticket_bucket_seq, closed_at = ?, body = ? WHERE id = ?";
+    private static final String NOTE_ISSUED = "UPDATE ticket_sequence SET last_ticket_id = ?, last_created_at = ? "
+            + "WHERE id = 1 AND last_ticket_id < ?";
+
+    private final HikariDataSource dataSource;
+    private final DailyArchive dailyArchive;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bodyWriter;
+    private final Clock clock;
+
+    @Autowired
+    public JdbcTicketRepository(
+            @Value("${tickets.jdbc.url:jdbc:h2:file:./data/tickets-db}") String url,
+            @Value("${tickets.jdbc.pool.size:4}") int poolSize,
+            DailyArchive dailyArchive,
+            ObjectMapper objectMapper,
+            Clock clock) {
+        this.dailyArchive = dailyArchive;
+        this.objectMapper = objectMapper;
+        this.bodyWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.clock = clock;
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setMaximumPoolSize(poolSize);
+        config.setPoolName("ticket-db");
+        config.setAutoCommit(true);
+        this.dataSource = new HikariDataSource(config);
+
+        createSchema();
+    }
+
+    public JdbcTicketRepository(String url, DailyArchive dailyArchive, ObjectMapper objectMapper, Clock clock) {
+        this(url, Integer.getInteger("tickets.jdbc.pool.size", 4), dailyArchive, objectMapper, clock);
+    }
+
+    public JdbcTicketRepository(ObjectMapper objectMapper) {
+        this(System.getProperty("tickets.jdbc.url", "jdbc:h2:file:./data/tickets-db"),
+                new DailyArchive(System.getProperty("tickets.dir", "data/tickets"), objectMapper),
+                objectMapper, Clock.systemUTC());
+    }
+
+    private void createSchema() {
+        inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            }
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+
+    @Override
+    public Ticket save(Ticket ticket) {
+        inTransaction(connection -> {
+            String body;
+            synchronized (ticket) {
+                ticket.drainChanges();
+                body = write(ticket);
+            }
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_TICKET)) {
+                update.setString(1, ticket.getTableNumber());
+                update.setString(2, TicketStore.tableKey(ticket.getTableNumber()));
+                update.setLong(3, ticket.getSubtotal());
+                update.setLong(4, ticket.getTotal());
+                update.setString(5, body);
+                update.setInt(6, ticket.getId());
+                if (update.executeUpdate() > 0) {
+                    return null;
+                }
+            }
+            insert(connection, ticket, ticket.getStatus(), body);
+            return null;
+        });
+        return ticket;
+    }
+
+    private void insert(Connection connection, Ticket ticket, TicketStatus status, String body) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_TICKET)) {
+            insert.setInt(1, ticket.getId());
+            insert.setString(2, status.name());
+            insert.setString(3, ticket.getTableNumber());
+            insert.setString(4, TicketStore.tableKey(ticket.getTableNumber()));
+            insert.setLong(5, ticket.getSubtotal());
+            insert.setLong(6, ticket.getTotal());
+            insert.setObject(7, timestamp(ticket.getCreatedAt()));
+            insert.setObject(8, timestamp(ticket.getClosedAt()));
+            insert.setString(9, body);
+            insert.executeUpdate();
+        }
+        try (PreparedStatement issued = connection.prepareStatement(NOTE_ISSUED)) {
+            issued.setInt(1, ticket.getId());
+            issued.setObject(2, timestamp(ticket.getCreatedAt()));
+            issued.setInt(3, ticket.getId());
+            issued.executeUpdate();
+        }
+    }
+
+    void importTicket(Ticket ticket, TicketStatus status) {
+        inTransaction(connection -> {
+            ticket.setStatus(status);
+            insert(connection, ticket, status, write(ticket));
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Ticket> findById(int id) {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(SELECT_TICKET + " WHERE id = ?")) {
+                select.setInt(1, id);
+                List<Ticket> tickets = read(select);
+                return tickets.isEmpty() ? Optional.empty() : Optional.of(tickets.get(0));
+            }
+        });
+    }
+
+    @Override
+    public List<Ticket> findAllActive() {
+        return findByStatus(TicketStatus.ACTIVE);
+    }
+
+    @Override
+    public List<Ticket> findAllCompleted() {
+        return findByStatus(TicketStatus.COMPLETED);
+    }
+
+    @Override
+    public List<Ticket> findAllClosed() {
+        return findByStatus(TicketStatus.CLOSED);
+    }
+
+    private List<Ticket> findByStatus(TicketStatus status) {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    SELECT_TICKET + " WHERE status = ? ORDER BY bucket_seq")) {
+                select.setString(1, status.name());
+                return read(select);
+            }
+        });
+    }
+
+    @Override
+    public List<TicketSummary> findClosedSummaries() {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id, table_number, subtotal, total, created_at, closed_at FROM tickets "
+                            + "WHERE status = ? ORDER BY bucket_seq")) {
+                select.setString(1, TicketStatus.CLOSED.name());
+                List<TicketSummary> summaries = new ArrayList<>();
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        summaries.add(new TicketSummary(rows.getInt(1), rows.getString(2), rows.getLong(3),
+                                rows.getLong(4), instant(rows.getObject(5, OffsetDateTime.class)),
+                                instant(rows.getObject(6, OffsetDateTime.class))));
+                    }
+                }
+                return summaries;
+            }
+        });
+    }
+
+    @Override
+    public List<Ticket> findOpenByTable(String tableNumber) {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    SELECT_TICKET + " WHERE table_key = ? AND status IN (?, ?) ORDER BY id")) {
+                select.setString(1, TicketStore.tableKey(tableNumber));
+                select.setString(2, TicketStatus.ACTIVE.name());
+                select.setString(3, TicketStatus.COMPLETED.name());
+                return read(select);
+            }
+        });
+    }
+
+    @Override
+    public long closedSubtotal() {
+        return sum("subtotal", TicketStatus.CLOSED, TicketStatus.CLOSED);
+    }
+
+    @Override
+    public long closedTotal() {
+        return sum("total", TicketStatus.CLOSED, TicketStatus.CLOSED);
+    }
+
+    @Override
+    public long activeAndCompletedSubtotal() {
+        return sum("subtotal", TicketStatus.ACTIVE, TicketStatus.COMPLETED);
+    }
+
+    @Override
+    public long activeAndCompletedTotal() {
+        return sum("total", TicketStatus.ACTIVE, TicketStatus.COMPLETED);
+    }
+
+    private long sum(String column, TicketStatus first, TicketStatus second) {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT COALESCE(SUM(" + column + "), 0) FROM tickets WHERE status IN (?, ?)")) {
+                select.setString(1, first.name());
+                select.setString(2, second.name());
+                try (ResultSet rows = select.executeQuery()) {
+                    rows.next();
+                    return rows.getLong(1);
+                }
+            }
+        });
+    }
+
+    @Override
+    public int lastTicketId() {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT last_ticket_id FROM ticket_sequence WHERE id = 1");
+                    ResultSet rows = select.executeQuery()) {
+                return rows.next() ? rows.getInt(1) : 0;
+            }
+        });
+    }
+
+    @Override
+    public Optional<Instant> lastTicketCreatedAt() {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT last_created_at FROM ticket_sequence WHERE id = 1");
+                    ResultSet rows = select.executeQuery()) {
+                return rows.next() ? Optional.ofNullable(instant(rows.getObject(1, OffsetDateTime.class)))
+                        : Optional.empty();
+            }
+        });
+    }
+
+    boolean isEmpty() {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement("SELECT COUNT(*) FROM tickets");
+                    ResultSet rows = select.executeQuery()) {
+                rows.next();
+                return rows.getLong(1) == 0;
+            }
+        });
+    }
+
+    void noteIssued(int lastTicketId, Instant lastCreatedAt) {
+        inTransaction(connection -> {
+            try (PreparedStatement issued = connection.prepareStatement(NOTE_ISSUED)) {
+                issued.setInt(1, lastTicketId);
+                issued.setObject(2, timestamp(lastCreatedAt));
+                issued.setInt(3, lastTicketId);
+                issued.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        return inTransaction(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM tickets WHERE id = ?")) {
+                delete.setInt(1, id);
+                return delete.executeUpdate() > 0;
+            }
+        });
+    }
+
+    @Override
+    public void deleteAll() {
+        inTransaction(connection -> {
+            clear(connection);
+            return null;
+        });
+        logger.info("Deleted all tickets from the ticket database");
+    }
+
+    private void clear(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM kitchen");
+            statement.executeUpdate("DELETE FROM tickets");
+            statement.executeUpdate("UPDATE ticket_sequence SET last_ticket_id = 0, last_created_at = NULL");
+        }
+    }
+
+    @Override
+    public void persistClosedTickets() {
+        archiveClosed(LocalDate.now(clock.withZone(ZoneId.systemDefault())), false);
+    }
+
+    @Override
+    public CompletableFuture<Void> rollOver(LocalDate previousDay) {
+        archiveClosed(previousDay, true);
+        logger.info("Rolled over tickets from {}", previousDay);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void archiveClosed(LocalDate date, boolean clearAll) {
+        inTransaction(connection -> {
+            List<Ticket> closed;
+            try (PreparedStatement select = connection.prepareStatement(
+                    SELECT_TICKET + " WHERE status = ? ORDER BY bucket_seq FOR UPDATE")) {
+                select.setString(1, TicketStatus.CLOSED.name());
+                closed = read(select);
+            }
+            try {
+                dailyArchive.append(date, closed);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to serialize closed tickets", e);
+            }
+            if (clearAll) {
+                clear(connection);
+            } else {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM tickets WHERE status = ?")) {
+                    delete.setString(1, TicketStatus.CLOSED.name());
+                    delete.executeUpdate();
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void moveToCompleted(int id) {
+        transition(id, TicketStatus.COMPLETED);
+    }
+
+    @Override
+    public void moveToClosed(int id) {
+        transition(id, TicketStatus.CLOSED);
+    }
+
+    @Override
+    public void moveToActive(int id) {
+        transition(id, TicketStatus.ACTIVE);
+    }
+
+    private void transition(int id, TicketStatus target) {
+        inTransaction(connection -> {
+            List<Ticket> found;
+            try (PreparedStatement select = connection.prepareStatement(SELECT_TICKET + " WHERE id = ? FOR UPDATE")) {
+                select.setInt(1, id);
+                found = read(select);
+            }
+            if (found.isEmpty() || found.get(0).getStatus() == target) {
+                return null;
+            }
+            Ticket ticket = found.get(0);
+            TicketTransitions.require(ticket.getStatus(), target);
+            ticket.apply(TicketChange.statusChanged(target));
+            ticket.drainChanges();
+            ticket.setClosedAt(target == TicketStatus.CLOSED ? Instant.now(clock) : null);
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_STATUS)) {
+                update.setString(1, target.name());
+                update.setObject(2, timestamp(ticket.getClosedAt()));
+                update.setString(3, write(ticket));
+                update.setInt(4, id);
+                update.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void addTicketToKitchen(int id) {
+        inTransaction(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO kitchen (ticket_id) SELECT id FROM tickets t WHERE t.id = ? "
+                            + "AND NOT EXISTS (SELECT 1 FROM kitchen k WHERE k.ticket_id = t.id)")) {
+                insert.setInt(1, id);
+                insert.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void removeTicketFromKitchen(int id) {
+        inTransaction(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM kitchen WHERE ticket_id = ?")) {
+                delete.setInt(1, id);
+                delete.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<Ticket> findAllKitchen() {
+        return inTransaction(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT t.status, t.closed_at, t.body FROM kitchen k JOIN tickets t ON t.id = k.ticket_id "
+                            + "ORDER BY k.seq")) {
+                return read(select);
+            }
+        });
+    }
+
+    @Override
+    public void deleteRecoveryFile() {
+    }
+
+    private List<Ticket> read(PreparedStatement select) throws SQLException {
+        List<Ticket> tickets = new ArrayList<>();
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                Ticket ticket;
+                try {
+                    ticket = objectMapper.readValue(rows.getString(3), Ticket.class);
+                } catch (JsonProcessingException e) {
+                    throw new SQLException("Unreadable ticket body", e);
+                }
+                ticket.setStatus(TicketStatus.valueOf(rows.getString(1)));
+                ticket.setClosedAt(instant(rows.getObject(2, OffsetDateTime.class)));
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
+    }
+
+    private String write(Ticket ticket) throws SQLException {
+        try {
+            return bodyWriter.writeValueAsString(ticket);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Failed to serialize ticket " + ticket.getId(), e);
+        }
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static Instant instant(OffsetDateTime timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private <T> T inTransaction(SqlWork<T> work) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ticket database operation failed", e);
+        }
+    }
+}
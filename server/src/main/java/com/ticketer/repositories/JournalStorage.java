@@ -0,0 +1,28 @@
+package com.ticketer.repositories;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+interface JournalStorage {
+
+    int headerLength();
+
+    boolean exists();
+
+    long size() throws IOException;
+
+    void append(ByteBuffer[] records) throws IOException;
+
+    void force() throws IOException;
+
+    InputStream openStream() throws IOException;
+
+    long truncateHead(long offset) throws IOException;
+
+    void truncateTail(long length) throws IOException;
+
+    void reset() throws IOException;
+
+    void close();
+}
@@ -0,0 +1,316 @@
+package com.ticketer.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class MappedJournalStorage implements JournalStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedJournalStorage.class);
+
+    private static final int SEGMENT_MAGIC = 0x544B5347;
+    private static final int FORMAT_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int SEGMENT_HEADER_BYTES = 24;
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private long sequence;
+        private int dataLength;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.capacity() - SEGMENT_HEADER_BYTES - dataLength;
+        }
+
+        private void setDataLength(int dataLength) {
+            this.dataLength = dataLength;
+            buffer.putLong(LENGTH_OFFSET, dataLength);
+        }
+
+        private void claim(long sequence, byte[] header) {
+            this.sequence = sequence;
+            buffer.putInt(0, SEGMENT_MAGIC);
+            buffer.putInt(FORMAT_OFFSET, header.length == 4 ? ByteBuffer.wrap(header).getInt() : 0);
+            buffer.putLong(SEQUENCE_OFFSET, sequence);
+            setDataLength(0);
+        }
+    }
+
+    private final Path base;
+    private final byte[] header;
+    private byte[] dataHeader;
+    private final int segmentBytes;
+    private final List<Segment> active = new ArrayList<>();
+    private final ArrayDeque<Segment> free = new ArrayDeque<>();
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+    private int nextFileIndex;
+    private long nextSequence = 1;
+
+    MappedJournalStorage(Path base, byte[] header, long segmentBytes) {
+        this.base = base;
+        if (header.length != 0 && header.length != 4) {
+            throw new IllegalArgumentException("Unsupported journal header length: " + header.length);
+        }
+        this.header = header;
+        this.dataHeader = header;
+        this.segmentBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(segmentBytes, SEGMENT_HEADER_BYTES + 1024));
+        try {
+            openExistingSegments();
+        } catch (IOException e) {
+            logger.error("Failed to open recovery segments for {}", base, e);
+        }
+    }
+
+    @Override
+    public int headerLength() {
+        return header.length;
+    }
+
+    @Override
+    public boolean exists() {
+        return !active.isEmpty();
+    }
+
+    @Override
+    public long size() {
+        if (active.isEmpty()) {
+            return 0;
+        }
+        long size = dataHeader.length;
+        for (Segment segment : active) {
+            size += segment.dataLength;
+        }
+        return size;
+    }
+
+    @Override
+    public void append(ByteBuffer[] records) throws IOException {
+        for (ByteBuffer record : records) {
+            int length = record.remaining();
+            Segment current = active.isEmpty() ? null : active.get(active.size() - 1);
+            if (current == null || current.remaining() < length) {
+                current = roll(length);
+            }
+            current.buffer.put(SEGMENT_HEADER_BYTES + current.dataLength, record, record.position(), length);
+            record.position(record.limit());
+            current.setDataLength(current.dataLength + length);
+            dirty.add(current);
+        }
+    }
+
+    @Override
+    public void force() {
+        for (Segment segment : dirty) {
+            segment.buffer.force();
+        }
+        dirty.clear();
+    }
+
+    @Override
+    public InputStream openStream() {
+        List<InputStream> parts = new ArrayList<>();
+        parts.add(new ByteArrayInputStream(dataHeader));
+        for (Segment segment : active) {
+            ByteBuffer data = segment.buffer.slice(SEGMENT_HEADER_BYTES, segment.dataLength);
+            parts.add(new ByteBufferInputStream(data));
+        }
+        return new SequenceInputStream(Collections.enumeration(parts));
+    }
+
+    @Override
+    public long truncateHead(long offset) {
+        long position = dataHeader.length;
+        while (!active.isEmpty() && position + active.get(0).dataLength <= offset) {
+            Segment head = active.remove(0);
+            position += head.dataLength;
+            recycle(head);
+        }
+        force();
+        return position - dataHeader.length;
+    }
+
+    @Override
+    public void truncateTail(long length) {
+        long keep = Math.max(0, length - dataHeader.length);
+        List<Segment> dropped = new ArrayList<>();
+        for (Segment segment : active) {
+            if (keep >= segment.dataLength) {
+                keep -= segment.dataLength;
+            } else if (keep > 0) {
+                segment.setDataLength((int) keep);
+                dirty.add(segment);
+                keep = 0;
+            } else {
+                dropped.add(segment);
+            }
+        }
+        active.removeAll(dropped);
+        dropped.forEach(this::recycle);
+        force();
+    }
+
+    @Override
+    public void reset() {
+        List<Segment> recycled = new ArrayList<>(active);
+        active.clear();
+        recycled.forEach(this::recycle);
+        force();
+    }
+
+    @Override
+    public void close() {
+        force();
+        List<Segment> all = new ArrayList<>(active);
+        all.addAll(free);
+        for (Segment segment : all) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close recovery segment: {}", segment.path, e);
+            }
+        }
+        active.clear();
+        free.clear();
+    }
+
+    @Override
+    public String toString() {
+        return base + ".seg-*";
+    }
+
+    private void openExistingSegments() throws IOException {
+        Path parent = base.toAbsolutePath().getParent();
+        if (parent == null || !Files.isDirectory(parent)) {
+            return;
+        }
+        String prefix = base.getFileName() + ".seg-";
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(parent)) {
+            paths = files.filter(p -> p.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+        for (Path path : paths) {
+            try {
+                nextFileIndex = Math.max(nextFileIndex,
+                        Integer.parseInt(path.getFileName().toString().substring(prefix.length())) + 1);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            long size = Files.size(path);
+            if (size <= SEGMENT_HEADER_BYTES || size > Integer.MAX_VALUE) {
+                continue;
+            }
+            Segment segment = map(path, (int) size);
+            ByteBuffer buffer = segment.buffer;
+            long dataLength = buffer.getLong(LENGTH_OFFSET);
+            if (buffer.getInt(0) == SEGMENT_MAGIC && dataLength > 0
+                    && dataLength <= size - SEGMENT_HEADER_BYTES) {
+                segment.sequence = buffer.getLong(SEQUENCE_OFFSET);
+                segment.dataLength = (int) dataLength;
+                active.add(segment);
+                nextSequence = Math.max(nextSequence, segment.sequence + 1);
+            } else {
+                free.add(segment);
+            }
+        }
+        active.sort(Comparator.comparingLong(s -> s.sequence));
+        if (!active.isEmpty()) {
+            int format = active.get(0).buffer.getInt(FORMAT_OFFSET);
+            dataHeader = format == 0 ? new byte[0] : ByteBuffer.allocate(4).putInt(format).array();
+        }
+    }
+
+    private Segment roll(int needed) throws IOException {
+        Segment next = null;
+        for (Segment candidate : free) {
+            if (candidate.buffer.capacity() - SEGMENT_HEADER_BYTES >= needed) {
+                next = candidate;
+                break;
+            }
+        }
+        if (next != null) {
+            free.remove(next);
+        } else {
+            Path path = base.resolveSibling(base.getFileName() + ".seg-" + String.format("%05d", nextFileIndex++));
+            next = map(path, Math.max(segmentBytes, SEGMENT_HEADER_BYTES + needed));
+        }
+        if (active.isEmpty()) {
+            dataHeader = header;
+        }
+        next.claim(nextSequence++, dataHeader);
+        active.add(next);
+        dirty.add(next);
+        return next;
+    }
+
+    private void recycle(Segment segment) {
+        segment.setDataLength(0);
+        dirty.add(segment);
+        free.add(segment);
+    }
+
+    private Segment map(Path path, int capacity) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            return new Segment(path, channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.ticketer.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+class RecoveryJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecoveryJournal.class);
+
+    private static final long IDLE_TIMEOUT_MILLIS = 5000;
+
+    enum Durability {
+        BATCH, INTERVAL, BUFFERED;
+
+        static Durability parse(String value) {
+            if (value == null || value.isBlank()) {
+                return BUFFERED;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown recovery durability mode: " + value, e);
+            }
+        }
+    }
+
+    enum Format {
+        JSON(new byte[0]), BINARY(new byte[] { 'T', 'K', 'J', 1 });
+
+        private final byte[] header;
+
+        Format(byte[] header) {
+            this.header = header;
+        }
+
+        byte[] header() {
+            return header.clone();
+        }
+
+        static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return JSON;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown recovery format: " + value, e);
+            }
+        }
+
+        static Format detect(InputStream in) throws IOException {
+            byte[] head = in.readNBytes(BINARY.header.length);
+            return java.util.Arrays.equals(head, BINARY.header) ? BINARY : JSON;
+        }
+    }
+
+    private record PendingWrite(byte[] record, long epoch, CompletableFuture<Void> future) {
+    }
+
+    private final JournalStorage storage;
+    private final Durability durability;
+    private final long syncIntervalMillis;
+
+    private final Object queueLock = new Object();
+    private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+    private Thread writer;
+    private boolean closed;
+    private long epoch;
+    private long length;
+
+    private final Object channelLock = new Object();
+    private boolean unsynced;
+    private long lastSyncNanos = System.nanoTime();
+
+    RecoveryJournal(Path path, Durability durability, long syncIntervalMillis) {
+        this(path, durability, syncIntervalMillis, Format.JSON);
+    }
+
+    RecoveryJournal(Path path, Durability durability, long syncIntervalMillis, Format format) {
+        this(new FileJournalStorage(path, format.header()), durability, syncIntervalMillis);
+    }
+
+    RecoveryJournal(JournalStorage storage, Durability durability, long syncIntervalMillis) {
+        this.storage = storage;
+        this.durability = durability;
+        this.syncIntervalMillis = syncIntervalMillis;
+        try {
+            this.length = storage.size();
+        } catch (IOException e) {
+            this.length = 0;
+        }
+    }
+
+    long length() {
+        synchronized (queueLock) {
+            return length;
+        }
+    }
+
+    boolean exists() {
+        synchronized (channelLock) {
+            return storage.exists();
+        }
+    }
+
+    InputStream openStream() throws IOException {
+        synchronized (channelLock) {
+            return storage.openStream();
+        }
+    }
+
+    CompletableFuture<Void> append(byte[] record) {
+        synchronized (queueLock) {
+            PendingWrite write = new PendingWrite(record, epoch, new CompletableFuture<>());
+            if (closed) {
+                write.future().completeExceptionally(new IOException("Recovery journal is closed"));
+                return write.future();
+            }
+            queue.add(write);
+            if (writer == null) {
+                writer = new Thread(this::runWriter, "recovery-journal");
+                writer.setDaemon(true);
+                writer.start();
+            } else {
+                queueLock.notifyAll();
+            }
+            return write.future();
+        }
+    }
+
+    void truncateHead(long offset) throws IOException {
+        synchronized (channelLock) {
+            if (offset <= 0 || !storage.exists()) {
+                return;
+            }
+            unsynced = false;
+            long removed = storage.truncateHead(offset);
+            synchronized (queueLock) {
+                length = Math.max(0, length - removed);
+            }
+        }
+    }
+
+    void truncateTail(long validLength) throws IOException {
+        synchronized (channelLock) {
+            storage.truncateTail(validLength);
+            long remaining = storage.size();
+            synchronized (queueLock) {
+                length = remaining;
+            }
+        }
+    }
+
+    void delete() {
+        synchronized (channelLock) {
+            discardPending();
+            unsynced = false;
+            try {
+                storage.reset();
+            } catch (IOException e) {
+                logger.warn("Failed to delete recovery file: {}", storage, e);
+            }
+        }
+    }
+
+    void close() {
+        Thread running;
+        synchronized (queueLock) {
+            closed = true;
+            running = writer;
+            queueLock.notifyAll();
+        }
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (channelLock) {
+            syncQuietly();
+            storage.close();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<PendingWrite> batch;
+            synchronized (queueLock) {
+                if (queue.isEmpty() && !closed) {
+                    try {
+                        queueLock.wait(durability == Durability.INTERVAL ? syncIntervalMillis : IDLE_TIMEOUT_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (queue.isEmpty()) {
+                    writer = null;
+                    break;
+                }
+                batch = new ArrayList<>(queue);
+                queue.clear();
+            }
+            writeBatch(batch);
+        }
+        if (durability != Durability.BUFFERED) {
+            synchronized (channelLock) {
+                syncQuietly();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        synchronized (channelLock) {
+            long current;
+            synchronized (queueLock) {
+                current = epoch;
+            }
+            List<ByteBuffer> records = new ArrayList<>(batch.size());
+            List<PendingWrite> stale = new ArrayList<>();
+            long appended = 0;
+            for (PendingWrite write : batch) {
+                if (write.epoch() == current) {
+                    records.add(ByteBuffer.wrap(write.record()));
+                    appended += write.record().length;
+                } else {
+                    stale.add(write);
+                }
+            }
+            if (!stale.isEmpty()) {
+                batch.removeAll(stale);
+                failDiscarded(stale);
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+            long validLength = -1;
+            try {
+                validLength = storage.size();
+                storage.append(records.toArray(new ByteBuffer[0]));
+                synchronized (queueLock) {
+                    if (length == 0) {
+                        length = storage.headerLength();
+                    }
+                    length += appended;
+                }
+                unsynced = true;
+                if (durability == Durability.BATCH || (durability == Durability.INTERVAL
+                        && System.nanoTime() - lastSyncNanos >= syncIntervalMillis * 1_000_000)) {
+                    storage.force();
+                    unsynced = false;
+                    lastSyncNanos = System.nanoTime();
+                }
+            } catch (IOException e) {
+                unsynced = false;
+                discardFailedWrite(validLength);
+                batch.forEach(w -> w.future().completeExceptionally(e));
+                return;
+            }
+        }
+        batch.forEach(w -> w.future().complete(null));
+    }
+
+    private void discardFailedWrite(long validLength) {
+        try {
+            if (validLength >= 0) {
+                storage.truncateTail(validLength);
+            }
+            long remaining = storage.size();
+            synchronized (queueLock) {
+                length = remaining;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to discard partial write to recovery file: {}", storage, e);
+        }
+    }
+
+    private void syncQuietly() {
+        if (!unsynced) {
+            return;
+        }
+        try {
+            storage.force();
+            unsynced = false;
+            lastSyncNanos = System.nanoTime();
+        } catch (IOException e) {
+            logger.warn("Failed to sync recovery file: {}", storage, e);
+        }
+    }
+
+    private void discardPending() {
+        List<PendingWrite> discarded;
+        synchronized (queueLock) {
+            discarded = new ArrayList<>(queue);
+            queue.clear();
+            epoch++;
+            length = 0;
+        }
+        failDiscarded(discarded);
+    }
+
+    private static void failDiscarded(List<PendingWrite> discarded) {
+        IOException reset = new IOException("Recovery journal was reset before the record was written");
+        discarded.forEach(w -> w.future().completeExceptionally(reset));
+    }
+}
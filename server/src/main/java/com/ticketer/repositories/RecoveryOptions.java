@@ -0,0 +1,22 @@
+package com.ticketer.repositories;
+
+public record RecoveryOptions(
+        String durability,
+        String format,
+        String storage,
+        long segmentBytes,
+        long syncIntervalMillis,
+        int snapshotEntries,
+        long snapshotBytes) {
+
+    public static RecoveryOptions fromSystemProperties() {
+        return new RecoveryOptions(
+                System.getProperty("recovery.durability", "buffered"),
+                System.getProperty("recovery.format", "json"),
+                System.getProperty("recovery.storage", "file"),
+                Long.getLong("recovery.segment.bytes", 4L * 1024 * 1024),
+                Long.getLong("recovery.sync.interval.ms", 1000),
+                Integer.getInteger("recovery.snapshot.entries", 5000),
+                Long.getLong("recovery.snapshot.bytes", 8L * 1024 * 1024));
+    }
+}
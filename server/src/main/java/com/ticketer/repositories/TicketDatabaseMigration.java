@@ -0,0 +1,55 @@
+package com.ticketer.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketer.config.JacksonConfig;
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class TicketDatabaseMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketDatabaseMigration.class);
+
+    private TicketDatabaseMigration() {
+    }
+
+    public static int migrate(TicketRepository source, JdbcTicketRepository target) {
+        if (!target.isEmpty()) {
+            throw new IllegalStateException("Target ticket database already contains tickets");
+        }
+        int migrated = 0;
+        for (Ticket ticket : source.findAllActive()) {
+            target.importTicket(ticket, TicketStatus.ACTIVE);
+            migrated++;
+        }
+        for (Ticket ticket : source.findAllCompleted()) {
+            target.importTicket(ticket, TicketStatus.COMPLETED);
+            migrated++;
+        }
+        for (Ticket ticket : source.findAllClosed()) {
+            target.importTicket(ticket, TicketStatus.CLOSED);
+            migrated++;
+        }
+        for (Ticket ticket : source.findAllKitchen()) {
+            target.addTicketToKitchen(ticket.getId());
+        }
+        target.noteIssued(source.lastTicketId(), source.lastTicketCreatedAt().orElse(null));
+        return migrated;
+    }
+
+    public static void main(String[] args) {
+        ObjectMapper mapper = new JacksonConfig().objectMapper();
+        FileTicketRepository source = new FileTicketRepository(mapper);
+        JdbcTicketRepository target = new JdbcTicketRepository(mapper);
+        try {
+            int migrated = migrate(source, target);
+            logger.info("Migrated {} tickets from {} into {}", migrated,
+                    System.getProperty("recovery.file", "data/recovery.json"),
+                    System.getProperty("tickets.jdbc.url", "jdbc:h2:file:./data/tickets-db"));
+        } finally {
+            source.close();
+            target.close();
+        }
+    }
+}
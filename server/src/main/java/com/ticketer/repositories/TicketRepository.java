@@ -1,8 +1,13 @@
 package com.ticketer.repositories;
 
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChangeSet;
+import com.ticketer.models.TicketSummary;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface TicketRepository {
     Ticket save(Ticket ticket);
@@ -15,6 +20,70 @@ public interface TicketRepository {
 
     List<Ticket> findAllClosed();
 
+    default List<TicketSummary> findClosedSummaries() {
+        return findAllClosed().stream().map(TicketSummary::of).toList();
+    }
+
+    default List<Ticket> findUnarchivedClosed() {
+        return findAllClosed();
+    }
+
+    default long closedSubtotal() {
+        return findClosedSummaries().stream().mapToLong(TicketSummary::getSubtotal).sum();
+    }
+
+    default long closedTotal() {
+        return findClosedSummaries().stream().mapToLong(TicketSummary::getTotal).sum();
+    }
+
+    default long activeAndCompletedSubtotal() {
+        return findAllActive().stream().mapToLong(Ticket::getSubtotal).sum()
+                + findAllCompleted().stream().mapToLong(Ticket::getSubtotal).sum();
+    }
+
+    default long activeAndCompletedTotal() {
+        return findAllActive().stream().mapToLong(Ticket::getTotal).sum()
+                + findAllCompleted().stream().mapToLong(Ticket::getTotal).sum();
+    }
+
+    default List<Ticket> findOpenByTable(String tableNumber) {
+        String table = TicketStore.tableKey(tableNumber);
+        return java.util.stream.Stream.concat(findAllActive().stream(), findAllCompleted().stream())
+                .filter(t -> TicketStore.tableKey(t.getTableNumber()).equals(table))
+                .toList();
+    }
+
+    default int lastTicketId() {
+        int maxId = 0;
+        for (Ticket t : findAllActive()) {
+            maxId = Math.max(maxId, t.getId());
+        }
+        for (Ticket t : findAllCompleted()) {
+            maxId = Math.max(maxId, t.getId());
+        }
+        for (TicketSummary t : findClosedSummaries()) {
+            maxId = Math.max(maxId, t.getId());
+        }
+        return maxId;
+    }
+
+    default Optional<Instant> lastTicketCreatedAt() {
+        return findById(lastTicketId()).map(Ticket::getCreatedAt);
+    }
+
+    default TicketChangeSet changesSince(long seq) {
+        List<Ticket> tickets = new java.util.ArrayList<>(findAllActive());
+        tickets.addAll(findAllCompleted());
+        tickets.addAll(findAllClosed());
+        return TicketChangeSet.full(0, tickets);
+    }
+
+    default CompletableFuture<Void> rollOver(LocalDate previousDay) {
+        persistClosedTickets();
+        deleteAll();
+        return CompletableFuture.completedFuture(null);
+    }
+
     boolean deleteById(int id);
 
     void deleteAll();
@@ -0,0 +1,270 @@
+package com.ticketer.repositories;
+
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+class TicketStore {
+
+    private static final class Entry {
+        private volatile Ticket ticket;
+        private volatile TicketStatus bucket;
+        private long subtotal;
+        private long total;
+        private String table;
+        private long changed;
+
+        private Entry(Ticket ticket, TicketStatus bucket) {
+            this.ticket = ticket;
+            this.bucket = bucket;
+        }
+    }
+
+    private final Map<Integer, Entry> index = new ConcurrentHashMap<>();
+    private final Map<TicketStatus, Map<Integer, Ticket>> buckets = new EnumMap<>(TicketStatus.class);
+    private final AtomicReferenceArray<List<Ticket>> views = new AtomicReferenceArray<>(TicketStatus.values().length);
+    private final AtomicLongArray subtotals = new AtomicLongArray(TicketStatus.values().length);
+    private final AtomicLongArray totals = new AtomicLongArray(TicketStatus.values().length);
+    private final Map<String, Set<Integer>> openByTable = new HashMap<>();
+
+    TicketStore() {
+        for (TicketStatus bucket : TicketStatus.values()) {
+            buckets.put(bucket, new LinkedHashMap<>());
+        }
+    }
+
+    Ticket get(int id) {
+        Entry entry = index.get(id);
+        return entry != null ? entry.ticket : null;
+    }
+
+    TicketStatus bucketOf(int id) {
+        Entry entry = index.get(id);
+        return entry != null ? entry.bucket : null;
+    }
+
+    boolean contains(int id) {
+        return index.containsKey(id);
+    }
+
+    List<Ticket> list(TicketStatus bucket) {
+        List<Ticket> view = views.get(bucket.ordinal());
+        if (view != null) {
+            return view;
+        }
+        synchronized (this) {
+            view = views.get(bucket.ordinal());
+            if (view == null) {
+                view = List.copyOf(buckets.get(bucket).values());
+                views.set(bucket.ordinal(), view);
+            }
+            return view;
+        }
+    }
+
+    long subtotal(TicketStatus bucket) {
+        return subtotals.get(bucket.ordinal());
+    }
+
+    long total(TicketStatus bucket) {
+        return totals.get(bucket.ordinal());
+    }
+
+    synchronized List<Ticket> openAtTable(String tableNumber) {
+        Set<Integer> ids = openByTable.get(tableKey(tableNumber));
+        if (ids == null) {
+            return List.of();
+        }
+        List<Ticket> tickets = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            tickets.add(index.get(id).ticket);
+        }
+        return tickets;
+    }
+
+    static String tableKey(String tableNumber) {
+        return tableNumber == null ? "" : tableNumber.trim().toLowerCase(Locale.ROOT);
+    }
+
+    synchronized void add(Ticket ticket, TicketStatus bucket) {
+        Entry entry = new Entry(ticket, bucket);
+        Entry previous = index.put(ticket.getId(), entry);
+        if (previous != null) {
+            buckets.get(previous.bucket).remove(ticket.getId());
+            invalidate(previous.bucket);
+            contribute(previous, -1);
+        }
+        buckets.get(bucket).put(ticket.getId(), ticket);
+        invalidate(bucket);
+        measure(entry);
+        contribute(entry, 1);
+    }
+
+    synchronized boolean replace(Ticket ticket) {
+        Entry entry = index.get(ticket.getId());
+        if (entry == null) {
+            return false;
+        }
+        entry.ticket = ticket;
+        buckets.get(entry.bucket).put(ticket.getId(), ticket);
+        invalidate(entry.bucket);
+        remeasure(entry);
+        return true;
+    }
+
+    synchronized void stamp(int id, long seq) {
+        Entry entry = index.get(id);
+        if (entry != null) {
+            entry.changed = seq;
+        }
+    }
+
+    synchronized List<Ticket> changedSince(long seq) {
+        List<Entry> changed = new ArrayList<>();
+        for (Entry entry : index.values()) {
+            if (entry.changed > seq) {
+                changed.add(entry);
+            }
+        }
+        changed.sort(Comparator.comparingLong(entry -> entry.changed));
+        List<Ticket> tickets = new ArrayList<>(changed.size());
+        for (Entry entry : changed) {
+            tickets.add(entry.ticket);
+        }
+        return tickets;
+    }
+
+    synchronized void refresh(int id) {
+        Entry entry = index.get(id);
+        if (entry != null) {
+            remeasure(entry);
+        }
+    }
+
+    synchronized void refreshAll() {
+        for (TicketStatus bucket : TicketStatus.values()) {
+            subtotals.set(bucket.ordinal(), 0);
+            totals.set(bucket.ordinal(), 0);
+        }
+        openByTable.clear();
+        for (Entry entry : index.values()) {
+            measure(entry);
+            contribute(entry, 1);
+        }
+    }
+
+    synchronized Ticket move(int id, TicketStatus target, TicketStatus... sources) {
+        Entry entry = index.get(id);
+        if (entry == null || !isOneOf(entry.bucket, sources)) {
+            return null;
+        }
+        buckets.get(entry.bucket).remove(id);
+        invalidate(entry.bucket);
+        contribute(entry, -1);
+        entry.bucket = target;
+        buckets.get(target).put(id, entry.ticket);
+        invalidate(target);
+        contribute(entry, 1);
+        return entry.ticket;
+    }
+
+    synchronized Ticket remove(int id) {
+        Entry entry = index.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        buckets.get(entry.bucket).remove(id);
+        invalidate(entry.bucket);
+        contribute(entry, -1);
+        return entry.ticket;
+    }
+
+    synchronized void clear(TicketStatus bucket) {
+        Map<Integer, Ticket> tickets = buckets.get(bucket);
+        for (Integer id : tickets.keySet()) {
+            Entry entry = index.remove(id);
+            if (entry != null && isOpen(bucket)) {
+                unindexTable(entry);
+            }
+        }
+        tickets.clear();
+        invalidate(bucket);
+        subtotals.set(bucket.ordinal(), 0);
+        totals.set(bucket.ordinal(), 0);
+    }
+
+    synchronized void clear() {
+        for (TicketStatus bucket : TicketStatus.values()) {
+            buckets.get(bucket).clear();
+            invalidate(bucket);
+            subtotals.set(bucket.ordinal(), 0);
+            totals.set(bucket.ordinal(), 0);
+        }
+        index.clear();
+        openByTable.clear();
+    }
+
+    private void remeasure(Entry entry) {
+        contribute(entry, -1);
+        measure(entry);
+        contribute(entry, 1);
+    }
+
+    private static void measure(Entry entry) {
+        Ticket ticket = entry.ticket;
+        synchronized (ticket) {
+            entry.subtotal = ticket.getSubtotal();
+            entry.total = ticket.getTotal();
+            entry.table = tableKey(ticket.getTableNumber());
+        }
+    }
+
+    private void contribute(Entry entry, int sign) {
+        subtotals.addAndGet(entry.bucket.ordinal(), sign * entry.subtotal);
+        totals.addAndGet(entry.bucket.ordinal(), sign * entry.total);
+        if (isOpen(entry.bucket)) {
+            if (sign > 0) {
+                openByTable.computeIfAbsent(entry.table, t -> new TreeSet<>()).add(entry.ticket.getId());
+            } else {
+                unindexTable(entry);
+            }
+        }
+    }
+
+    private void unindexTable(Entry entry) {
+        Set<Integer> ids = openByTable.get(entry.table);
+        if (ids != null && ids.remove(entry.ticket.getId()) && ids.isEmpty()) {
+            openByTable.remove(entry.table);
+        }
+    }
+
+    private static boolean isOpen(TicketStatus bucket) {
+        return bucket == TicketStatus.ACTIVE || bucket == TicketStatus.COMPLETED;
+    }
+
+    private void invalidate(TicketStatus bucket) {
+        views.set(bucket.ordinal(), null);
+    }
+
+    private static boolean isOneOf(TicketStatus bucket, TicketStatus... candidates) {
+        for (TicketStatus candidate : candidates) {
+            if (candidate == bucket) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
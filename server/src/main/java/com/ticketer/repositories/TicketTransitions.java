@@ -0,0 +1,46 @@
+package com.ticketer.repositories;
+
+import com.ticketer.exceptions.ActionNotAllowedException;
+import com.ticketer.models.TicketStatus;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public final class TicketTransitions {
+
+    private static final Map<TicketStatus, Set<TicketStatus>> ALLOWED = new EnumMap<>(TicketStatus.class);
+    private static final Map<TicketStatus, TicketStatus[]> SOURCES = new EnumMap<>(TicketStatus.class);
+
+    static {
+        ALLOWED.put(TicketStatus.ACTIVE, EnumSet.of(TicketStatus.COMPLETED, TicketStatus.CLOSED));
+        ALLOWED.put(TicketStatus.COMPLETED, EnumSet.of(TicketStatus.ACTIVE, TicketStatus.CLOSED));
+        ALLOWED.put(TicketStatus.CLOSED, EnumSet.noneOf(TicketStatus.class));
+        for (TicketStatus target : TicketStatus.values()) {
+            SOURCES.put(target, ALLOWED.entrySet().stream()
+                    .filter(e -> e.getValue().contains(target))
+                    .map(Map.Entry::getKey)
+                    .toArray(TicketStatus[]::new));
+        }
+    }
+
+    private TicketTransitions() {
+    }
+
+    public static boolean isAllowed(TicketStatus from, TicketStatus to) {
+        return from == to || ALLOWED.get(from).contains(to);
+    }
+
+    public static void require(TicketStatus from, TicketStatus to) {
+        if (!isAllowed(from, to)) {
+            throw new ActionNotAllowedException("Cannot move a " + from.name().toLowerCase(Locale.ROOT)
+                    + " ticket to " + to.name().toLowerCase(Locale.ROOT) + ".");
+        }
+    }
+
+    static TicketStatus[] sources(TicketStatus to) {
+        return SOURCES.get(to).clone();
+    }
+}
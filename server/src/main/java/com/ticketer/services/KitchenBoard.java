@@ -0,0 +1,166 @@
+package com.ticketer.services;
+
+import com.ticketer.dtos.KitchenBoardDto;
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+@Service
+public class KitchenBoard {
+
+    private static final Logger logger = LoggerFactory.getLogger(KitchenBoard.class);
+    private static final double EPSILON = 1e-9;
+
+    private final TicketService ticketService;
+    private final MenuService menuService;
+    private final Map<Integer, Map<String, Double>> contributions = new HashMap<>();
+    private final Map<String, Double> counts = new TreeMap<>();
+    private final List<Consumer<KitchenBoardDto>> listeners = new CopyOnWriteArrayList<>();
+    private final Executor dispatcher;
+    private long version;
+    private long menuVersion = -1;
+
+    @Autowired
+    public KitchenBoard(TicketService ticketService, MenuService menuService) {
+        this(ticketService, menuService, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "kitchen-board");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    KitchenBoard(TicketService ticketService, MenuService menuService, Executor dispatcher) {
+        this.ticketService = ticketService;
+        this.menuService = menuService;
+        this.dispatcher = dispatcher;
+        ticketService.addListener(this::dispatch);
+        synchronized (this) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dispatcher instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void addListener(Consumer<KitchenBoardDto> listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized KitchenBoardDto getBoard() {
+        if (menuService.menuVersion() != menuVersion) {
+            rebuild();
+            return publish();
+        }
+        return snapshot();
+    }
+
+    private void dispatch(TicketEvent event) {
+        try {
+            dispatcher.execute(() -> onTicketEvent(event));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dropping {} for ticket {} after shutdown", event.type(), event.ticketId());
+        }
+    }
+
+    synchronized void onTicketEvent(TicketEvent event) {
+        boolean changed = true;
+        if (menuService.menuVersion() != menuVersion || event.type() == TicketEvent.Type.TICKETS_RESET) {
+            rebuild();
+        } else {
+            changed = switch (event.type()) {
+                case KITCHEN_ADDED -> refresh(event.ticketId());
+                case TICKET_UPDATED, TICKET_MOVED ->
+                    contributions.containsKey(event.ticketId()) && refresh(event.ticketId());
+                case KITCHEN_REMOVED, TICKET_REMOVED -> update(event.ticketId(), null);
+                default -> false;
+            };
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    private boolean refresh(int ticketId) {
+        Ticket ticket = ticketService.getTicket(ticketId);
+        return update(ticketId, ticket != null ? tally(ticket) : null);
+    }
+
+    private boolean update(int ticketId, Map<String, Double> tally) {
+        Map<String, Double> previous = tally != null ? contributions.put(ticketId, tally)
+                : contributions.remove(ticketId);
+        if (previous == null && tally == null) {
+            return false;
+        }
+        if (previous != null && tally != null && previous.equals(tally)) {
+            return false;
+        }
+        apply(previous, -1);
+        apply(tally, 1);
+        version++;
+        return true;
+    }
+
+    private void rebuild() {
+        menuVersion = menuService.menuVersion();
+        contributions.clear();
+        counts.clear();
+        for (Ticket ticket : ticketService.getKitchenTickets()) {
+            Map<String, Double> tally = tally(ticket);
+            contributions.put(ticket.getId(), tally);
+            apply(tally, 1);
+        }
+        version++;
+    }
+
+    private Map<String, Double> tally(Ticket ticket) {
+        return new HashMap<>(menuService.getKitchenDetails(ticket).kitchenTally());
+    }
+
+    private void apply(Map<String, Double> tally, int sign) {
+        if (tally == null) {
+            return;
+        }
+        tally.forEach((name, quantity) -> counts.compute(Objects.requireNonNullElse(name, ""), (key, count) -> {
+            double updated = (count != null ? count : 0) + sign * quantity;
+            return Math.abs(updated) < EPSILON ? null : updated;
+        }));
+    }
+
+    private KitchenBoardDto snapshot() {
+        return new KitchenBoardDto(version, contributions.size(),
+                Collections.unmodifiableMap(new TreeMap<>(counts)));
+    }
+
+    private KitchenBoardDto publish() {
+        KitchenBoardDto board = snapshot();
+        for (Consumer<KitchenBoardDto> listener : listeners) {
+            try {
+                listener.accept(board);
+            } catch (RuntimeException e) {
+                logger.warn("Kitchen board listener failed for version {}", board.version(), e);
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ticketer.services;
+
+import com.ticketer.models.BaseItem;
+import com.ticketer.models.ComboItem;
+import com.ticketer.models.CompositeComponent;
+import com.ticketer.models.Menu;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+final class KitchenIndex {
+
+    private static final class Recipe {
+        private final boolean kitchen;
+        private final String[] names;
+        private final double[] quantities;
+
+        private Recipe(boolean kitchen, Map<String, Double> leaves) {
+            this.kitchen = kitchen;
+            if (leaves == null) {
+                this.names = null;
+                this.quantities = null;
+            } else {
+                this.names = leaves.keySet().toArray(new String[0]);
+                this.quantities = new double[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    quantities[i] = leaves.get(names[i]);
+                }
+            }
+        }
+    }
+
+    private final Map<UUID, Recipe> recipes;
+    private final Set<UUID> kitchenCombos;
+
+    private KitchenIndex(Map<UUID, Recipe> recipes, Set<UUID> kitchenCombos) {
+        this.recipes = recipes;
+        this.kitchenCombos = kitchenCombos;
+    }
+
+    static KitchenIndex build(Menu menu) {
+        if (menu == null) {
+            return new KitchenIndex(Map.of(), Set.of());
+        }
+        Map<UUID, Recipe> recipes = new HashMap<>();
+        for (Map.Entry<UUID, BaseItem> entry : menu.getBaseItems().entrySet()) {
+            BaseItem item = entry.getValue();
+            Map<String, Double> leaves = null;
+            if (item.getComponents() != null && !item.getComponents().isEmpty()) {
+                leaves = new LinkedHashMap<>();
+                Set<UUID> path = new HashSet<>();
+                path.add(entry.getKey());
+                flatten(menu, item, 1.0, leaves, path);
+            }
+            recipes.put(entry.getKey(), new Recipe(item.isKitchen(), leaves));
+        }
+        Set<UUID> kitchenCombos = new HashSet<>();
+        for (ComboItem combo : menu.getCombos().values()) {
+            if (combo.isKitchen()) {
+                kitchenCombos.add(combo.getId());
+            }
+        }
+        return new KitchenIndex(Map.copyOf(recipes), Set.copyOf(kitchenCombos));
+    }
+
+    private static void flatten(Menu menu, BaseItem item, double multiplier, Map<String, Double> leaves,
+            Set<UUID> path) {
+        for (CompositeComponent cc : item.getComponents()) {
+            BaseItem sub = menu.getBaseItem(cc.getBaseItemId());
+            if (sub == null || !path.add(cc.getBaseItemId())) {
+                continue;
+            }
+            double quantity = multiplier * cc.getQuantity();
+            if (sub.getComponents() != null && !sub.getComponents().isEmpty()) {
+                flatten(menu, sub, quantity, leaves, path);
+            } else {
+                leaves.merge(sub.getName(), quantity, Double::sum);
+            }
+            path.remove(cc.getBaseItemId());
+        }
+    }
+
+    boolean isKitchen(UUID baseItemId) {
+        Recipe recipe = baseItemId != null ? recipes.get(baseItemId) : null;
+        return recipe != null && recipe.kitchen;
+    }
+
+    boolean isKitchenCombo(UUID comboId) {
+        return comboId != null && kitchenCombos.contains(comboId);
+    }
+
+    void addToTally(Map<String, Double> tally, UUID baseItemId, String snapshotName) {
+        Recipe recipe = baseItemId != null ? recipes.get(baseItemId) : null;
+        if (recipe == null || !recipe.kitchen) {
+            return;
+        }
+        if (recipe.names == null) {
+            tally.merge(snapshotName, 1.0, Double::sum);
+            return;
+        }
+        for (int i = 0; i < recipe.names.length; i++) {
+            tally.merge(recipe.names[i], recipe.quantities[i], Double::sum);
+        }
+    }
+}
@@ -20,14 +20,17 @@ import com.ticketer.models.OrderItem;
 import com.ticketer.models.Ticket;
 import com.ticketer.repositories.MenuRepository;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
@@ -41,23 +44,41 @@ public class MenuService {
 
     private final MenuRepository menuRepository;
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, CachedKitchenTicket> kitchenDetails = new ConcurrentHashMap<>();
     private Menu currentMenu;
+    private KitchenIndex kitchenIndex;
+    private long menuVersion;
+
+    private record CachedKitchenTicket(long revision, Instant createdAt, long menuVersion, KitchenTicketDto details) {
+    }
 
     @Autowired
     public MenuService(MenuRepository menuRepository) {
         this.menuRepository = menuRepository;
         this.currentMenu = menuRepository.getMenu();
+        this.kitchenIndex = KitchenIndex.build(currentMenu);
     }
 
     public void refreshMenu() {
         lock.writeLock().lock();
         try {
             this.currentMenu = menuRepository.getMenu();
+            kitchenIndex = KitchenIndex.build(currentMenu);
+            menuVersion++;
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    long menuVersion() {
+        lock.readLock().lock();
+        try {
+            return menuVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public Menu getMenu() {
         lock.readLock().lock();
         try {
@@ -99,7 +120,7 @@ public class MenuService {
             UUID id = UUID.randomUUID();
             BaseItem item = new BaseItem(id, name.trim(), price, true, kitchen, alcohol, components);
             currentMenu.addBaseItem(item);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
             return item;
         } finally {
             lock.writeLock().unlock();
@@ -112,7 +133,7 @@ public class MenuService {
         try {
             BaseItem item = requireBaseItem(id);
             item.setPrice(price);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -122,7 +143,7 @@ public class MenuService {
         lock.writeLock().lock();
         try {
             requireBaseItem(id).setAvailable(available);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -132,7 +153,7 @@ public class MenuService {
         lock.writeLock().lock();
         try {
             requireBaseItem(id).setKitchen(kitchen);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -142,7 +163,7 @@ public class MenuService {
         lock.writeLock().lock();
         try {
             requireBaseItem(id).setAlcohol(alcohol);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -153,7 +174,7 @@ public class MenuService {
         try {
             BaseItem item = requireBaseItem(id);
             item.setComponents(components != null && !components.isEmpty() ? components : null);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -165,7 +186,7 @@ public class MenuService {
         lock.writeLock().lock();
         try {
             requireBaseItem(id).setName(newName.trim());
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -176,7 +197,7 @@ public class MenuService {
         try {
             if (!currentMenu.removeBaseItem(id))
                 throw new EntityNotFoundException("Base item not found: " + id);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -197,7 +218,7 @@ public class MenuService {
             CategoryEntry entry = currentMenu.getCategory(name);
             if (entry == null) throw new EntityNotFoundException("Category not found: " + name);
             entry.setVisible(visible);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -211,7 +232,7 @@ public class MenuService {
             if (currentMenu.getCategory(oldName) == null)
                 throw new EntityNotFoundException("Category not found: " + oldName);
             currentMenu.renameCategory(oldName, newName.trim());
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -222,7 +243,7 @@ public class MenuService {
         try {
             if (!currentMenu.removeCategory(name))
                 throw new EntityNotFoundException("Category not found: " + name);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -238,7 +259,7 @@ public class MenuService {
                     throw new EntityNotFoundException("Category not found: " + cat);
             }
             currentMenu.setCategoryOrder(new ArrayList<>(order));
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -259,7 +280,7 @@ public class MenuService {
                 throw new InvalidInputException("Item already in category: " + category);
             currentMenu.addMenuItem(category, new MenuItem(baseItemId,
                     sideSources != null ? sideSources : Collections.emptyList()));
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -270,7 +291,7 @@ public class MenuService {
         try {
             if (!currentMenu.removeMenuItem(category, baseItemId))
                 throw new EntityNotFoundException("Item not found in category: " + category);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -283,7 +304,7 @@ public class MenuService {
             if (mi == null)
                 throw new EntityNotFoundException("Item not found in category: " + category);
             mi.setSideSources(sideSources != null ? sideSources : Collections.emptyList());
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -309,7 +330,7 @@ public class MenuService {
                     .map(itemMap::get)
                     .collect(Collectors.toList());
             entry.setItems(reordered);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -325,7 +346,7 @@ public class MenuService {
                 throw new EntityNotFoundException("Item not found in category: " + fromCategory);
             currentMenu.removeMenuItem(fromCategory, baseItemId);
             currentMenu.addMenuItem(toCategory, mi);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -367,7 +388,7 @@ public class MenuService {
                     componentIds != null ? componentIds : Collections.emptyList(),
                     slots, price, true, kitchen);
             currentMenu.addCombo(combo);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
             return combo;
         } finally {
             lock.writeLock().unlock();
@@ -383,7 +404,7 @@ public class MenuService {
             if (price != null) combo.setPrice(price);
             if (available != null) combo.setAvailable(available);
             if (kitchen != null) combo.setKitchen(kitchen);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -394,7 +415,7 @@ public class MenuService {
         try {
             if (!currentMenu.removeCombo(id))
                 throw new EntityNotFoundException("Combo not found: " + id);
-            menuRepository.saveMenu(currentMenu);
+            saveMenu();
         } finally {
             lock.writeLock().unlock();
         }
@@ -476,113 +497,99 @@ public class MenuService {
 
     private boolean kitchenRelevantUnlocked(OrderItem item) {
         if (item.isCombo()) {
-            ComboItem combo = currentMenu.getCombo(item.getComboId());
-            if (combo != null && combo.isKitchen()) return true;
+            if (kitchenIndex.isKitchenCombo(item.getComboId())) return true;
             if (item.getComponents() != null) {
                 for (ComboComponentSnapshot comp : item.getComponents()) {
-                    BaseItem bi = currentMenu.getBaseItem(comp.getBaseItemId());
-                    if (bi != null && bi.isKitchen()) return true;
+                    if (kitchenIndex.isKitchen(comp.getBaseItemId())) return true;
                 }
             }
             if (item.getSlotSelections() != null) {
                 for (ComboSlotSelection sel : item.getSlotSelections()) {
-                    BaseItem bi = currentMenu.getBaseItem(sel.getSelectedBaseItemId());
-                    if (bi != null && bi.isKitchen()) return true;
+                    if (kitchenIndex.isKitchen(sel.getSelectedBaseItemId())) return true;
                 }
             }
             return false;
         } else {
-            BaseItem bi = currentMenu.getBaseItem(item.getMenuItemId());
-            if (bi != null && bi.isKitchen()) return true;
-            if (item.getSelectedSideId() != null) {
-                BaseItem side = currentMenu.getBaseItem(item.getSelectedSideId());
-                if (side != null && side.isKitchen()) return true;
-            }
-            return false;
+            return kitchenIndex.isKitchen(item.getMenuItemId()) || kitchenIndex.isKitchen(item.getSelectedSideId());
         }
     }
 
+    public List<KitchenTicketDto> getKitchenDetails(List<Ticket> tickets) {
+        Set<Integer> ids = new HashSet<>();
+        List<KitchenTicketDto> details = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            ids.add(ticket.getId());
+            details.add(getKitchenDetails(ticket));
+        }
+        kitchenDetails.keySet().retainAll(ids);
+        return details;
+    }
+
     public KitchenTicketDto getKitchenDetails(Ticket ticket) {
         lock.readLock().lock();
         try {
-            Map<String, Double> tally = new LinkedHashMap<>();
-            List<KitchenOrderGroupDto> kitchenOrders = new ArrayList<>();
-
-            for (Order order : ticket.getOrders()) {
-                for (OrderItem item : order.getItems()) {
-                    addToTally(tally, item);
-                }
+            long revision = ticket.getRevision();
+            CachedKitchenTicket cached = kitchenDetails.get(ticket.getId());
+            if (cached != null && cached.revision() == revision && cached.menuVersion() == menuVersion
+                    && Objects.equals(cached.createdAt(), ticket.getCreatedAt())) {
+                return cached.details();
             }
+            KitchenTicketDto details = buildKitchenDetails(ticket);
+            kitchenDetails.put(ticket.getId(),
+                    new CachedKitchenTicket(revision, ticket.getCreatedAt(), menuVersion, details));
+            return details;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            for (Order order : ticket.getOrders()) {
-                List<KitchenItemDto> groupItems = buildKitchenGroupItems(order);
-                if (!groupItems.isEmpty()
-                        || (order.getComment() != null && !order.getComment().trim().isEmpty())) {
-                    kitchenOrders.add(new KitchenOrderGroupDto(order.getComment(), groupItems));
-                }
+    private KitchenTicketDto buildKitchenDetails(Ticket ticket) {
+        Map<String, Double> tally = new LinkedHashMap<>();
+        List<KitchenOrderGroupDto> kitchenOrders = new ArrayList<>();
+
+        for (Order order : ticket.getOrders()) {
+            for (OrderItem item : order.getItems()) {
+                addToTally(tally, item);
             }
+        }
 
-            return new KitchenTicketDto(
-                    ticket.getId(),
-                    ticket.getTableNumber(),
-                    tally,
-                    kitchenOrders,
-                    ticket.getCreatedAt() != null ? ticket.getCreatedAt().toString() : null,
-                    ticket.getComment());
-        } finally {
-            lock.readLock().unlock();
+        for (Order order : ticket.getOrders()) {
+            List<KitchenItemDto> groupItems = buildKitchenGroupItems(order);
+            if (!groupItems.isEmpty()
+                    || (order.getComment() != null && !order.getComment().trim().isEmpty())) {
+                kitchenOrders.add(new KitchenOrderGroupDto(order.getComment(), groupItems));
+            }
         }
+
+        return new KitchenTicketDto(
+                ticket.getId(),
+                ticket.getTableNumber(),
+                tally,
+                kitchenOrders,
+                ticket.getCreatedAt() != null ? ticket.getCreatedAt().toString() : null,
+                ticket.getComment());
     }
 
     private void addToTally(Map<String, Double> tally, OrderItem item) {
         if (item.isCombo()) {
             if (item.getComponents() != null) {
                 for (ComboComponentSnapshot comp : item.getComponents()) {
-                    BaseItem bi = currentMenu.getBaseItem(comp.getBaseItemId());
-                    if (bi != null && bi.isKitchen()) {
-                        addBaseItemToTally(tally, bi, comp.getName());
-                    }
+                    kitchenIndex.addToTally(tally, comp.getBaseItemId(), comp.getName());
                 }
             }
             if (item.getSlotSelections() != null) {
                 for (ComboSlotSelection sel : item.getSlotSelections()) {
-                    BaseItem bi = currentMenu.getBaseItem(sel.getSelectedBaseItemId());
-                    if (bi != null && bi.isKitchen()) {
-                        addBaseItemToTally(tally, bi, sel.getSelectedName());
-                    }
+                    kitchenIndex.addToTally(tally, sel.getSelectedBaseItemId(), sel.getSelectedName());
                 }
             }
         } else {
-            BaseItem bi = currentMenu.getBaseItem(item.getMenuItemId());
-            if (bi != null && bi.isKitchen()) {
-                addBaseItemToTally(tally, bi, item.getName());
-            }
-            if (item.getSelectedSideId() != null) {
-                BaseItem side = currentMenu.getBaseItem(item.getSelectedSideId());
-                if (side != null && side.isKitchen() && item.getSelectedSide() != null) {
-                    addBaseItemToTally(tally, side, item.getSelectedSide());
-                }
+            kitchenIndex.addToTally(tally, item.getMenuItemId(), item.getName());
+            if (item.getSelectedSide() != null) {
+                kitchenIndex.addToTally(tally, item.getSelectedSideId(), item.getSelectedSide());
             }
         }
     }
 
-    private void addBaseItemToTally(Map<String, Double> tally, BaseItem bi, String snapshotName) {
-        addBaseItemToTally(tally, bi, snapshotName, 1.0);
-    }
-
-    private void addBaseItemToTally(Map<String, Double> tally, BaseItem bi, String snapshotName, double multiplier) {
-        if (bi.getComponents() != null && !bi.getComponents().isEmpty()) {
-            for (CompositeComponent cc : bi.getComponents()) {
-                BaseItem sub = currentMenu.getBaseItem(cc.getBaseItemId());
-                if (sub != null) {
-                    addBaseItemToTally(tally, sub, sub.getName(), multiplier * cc.getQuantity());
-                }
-            }
-        } else {
-            tally.merge(snapshotName, multiplier, Double::sum);
-        }
-    }
-
     private List<KitchenItemDto> buildKitchenGroupItems(Order order) {
         List<KitchenItemDto> groupItems = new ArrayList<>();
         Map<String, Integer> groupCounts = new LinkedHashMap<>();
@@ -636,16 +643,14 @@ public class MenuService {
         List<String> kitchenParts = new ArrayList<>();
         if (item.getComponents() != null) {
             for (ComboComponentSnapshot comp : item.getComponents()) {
-                BaseItem bi = currentMenu.getBaseItem(comp.getBaseItemId());
-                if (bi != null && bi.isKitchen()) {
+                if (kitchenIndex.isKitchen(comp.getBaseItemId())) {
                     kitchenParts.add(comp.getName());
                 }
             }
         }
         if (item.getSlotSelections() != null) {
             for (ComboSlotSelection sel : item.getSlotSelections()) {
-                BaseItem bi = currentMenu.getBaseItem(sel.getSelectedBaseItemId());
-                if (bi != null && bi.isKitchen()) {
+                if (kitchenIndex.isKitchen(sel.getSelectedBaseItemId())) {
                     kitchenParts.add(sel.getSelectedName());
                 }
             }
@@ -666,15 +671,18 @@ public class MenuService {
     private String buildSlotKey(OrderItem item) {
         if (item.getSlotSelections() == null) return "";
         return item.getSlotSelections().stream()
-                .filter(s -> {
-                    BaseItem bi = currentMenu.getBaseItem(s.getSelectedBaseItemId());
-                    return bi != null && bi.isKitchen();
-                })
+                .filter(s -> kitchenIndex.isKitchen(s.getSelectedBaseItemId()))
                 .map(s -> s.getSlotId() + ":" + s.getSelectedBaseItemId())
                 .collect(Collectors.joining(","));
     }
 
 
+    private void saveMenu() {
+        kitchenIndex = KitchenIndex.build(currentMenu);
+        menuVersion++;
+        menuRepository.saveMenu(currentMenu);
+    }
+
     private boolean isEffectivelyAvailable(UUID id) {
         return isEffectivelyAvailable(id, new HashSet<>());
     }
@@ -10,6 +10,7 @@ import com.ticketer.models.Order;
 import com.ticketer.models.OrderItem;
 import com.ticketer.models.Settings;
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketStatus;
 import com.ticketer.components.SerialPortManager;
 
 import org.slf4j.Logger;
@@ -51,7 +52,7 @@ public class PrintService {
 
         logger.info("Found ticket {} with status {}", ticketId, ticket.getStatus());
 
-        if (!"CLOSED".equals(ticket.getStatus())) {
+        if (ticket.getStatus() != TicketStatus.CLOSED) {
             logger.warn("Cannot print ticket {} - status is {} (expected CLOSED)", ticketId, ticket.getStatus());
             throw new ActionNotAllowedException("Only closed tickets can be printed");
         }
@@ -90,7 +91,7 @@ public class PrintService {
 
         logger.info("Found ticket {} with status {}", ticketId, ticket.getStatus());
 
-        if (!"CLOSED".equals(ticket.getStatus())) {
+        if (ticket.getStatus() != TicketStatus.CLOSED) {
             logger.warn("Cannot print order for ticket {} - status is {} (expected CLOSED)", ticketId,
                     ticket.getStatus());
             throw new ActionNotAllowedException("Only closed tickets can be printed");
@@ -140,7 +141,7 @@ public class PrintService {
         if (ticket == null) {
             throw new EntityNotFoundException("Ticket not found: " + ticketId);
         }
-        if (!"CLOSED".equals(ticket.getStatus())) {
+        if (ticket.getStatus() != TicketStatus.CLOSED) {
             throw new ActionNotAllowedException("Only closed tickets can be printed");
         }
 
@@ -0,0 +1,116 @@
+package com.ticketer.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ticketer.dtos.KitchenBoardDto;
+import com.ticketer.models.TicketEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class TicketEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketEventStream.class);
+    private static final String KITCHEN_BOARD = "KITCHEN_BOARD";
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ObjectWriter eventWriter;
+    private final ScheduledExecutorService dispatcher;
+
+    @Autowired
+    public TicketEventStream(TicketService ticketService, KitchenBoard kitchenBoard, ObjectMapper objectMapper,
+            @Value("${tickets.events.heartbeat.ms:20000}") long heartbeatMillis) {
+        this.eventWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ticket-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (heartbeatMillis > 0) {
+            dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+        ticketService.addListener(this::publish);
+        kitchenBoard.addListener(this::publish);
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        send(emitter, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    int subscribers() {
+        return emitters.size();
+    }
+
+    void publish(TicketEvent event) {
+        publish(event.type().name(), event);
+    }
+
+    void publish(KitchenBoardDto board) {
+        publish(KITCHEN_BOARD, board);
+    }
+
+    private void publish(String name, Object payload) {
+        String data;
+        try {
+            data = eventWriter.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event {}", name, payload, e);
+            return;
+        }
+        try {
+            dispatcher.execute(() -> broadcast(name, data));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dropping {} event {} after shutdown", name, payload);
+        }
+    }
+
+    private void broadcast(String name, String data) {
+        for (SseEmitter emitter : emitters) {
+            send(emitter, SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void heartbeat() {
+        for (SseEmitter emitter : emitters) {
+            send(emitter, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+}
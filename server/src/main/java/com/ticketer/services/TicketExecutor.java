@@ -0,0 +1,25 @@
+package com.ticketer.services;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+interface TicketExecutor {
+
+    <T> T execute(int ticketId, Supplier<T> command);
+
+    default void execute(int ticketId, Runnable command) {
+        execute(ticketId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    static TicketExecutor forMode(String mode) {
+        String normalized = mode == null ? "" : mode.trim().toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "", "locked" -> new TicketLocks(64);
+            case "mailbox" -> new TicketMailboxes();
+            default -> throw new IllegalArgumentException("Unknown ticket execution mode: " + mode);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.ticketer.services;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+class TicketLocks implements TicketExecutor {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    TicketLocks(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    ReentrantLock lockFor(int ticketId) {
+        return stripes[(ticketId ^ (ticketId >>> 16)) & mask];
+    }
+
+    @Override
+    public <T> T execute(int ticketId, Supplier<T> command) {
+        ReentrantLock lock = lockFor(ticketId);
+        lock.lock();
+        try {
+            return command.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ticketer.services;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+class TicketMailboxes implements TicketExecutor {
+
+    private static final ThreadLocal<Mailbox> CURRENT = new ThreadLocal<>();
+
+    private final Map<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> T execute(int ticketId, Supplier<T> command) {
+        Mailbox current = CURRENT.get();
+        if (current != null && current.ticketId == ticketId) {
+            return command.get();
+        }
+        Mailbox mailbox = mailboxes.compute(ticketId, (id, existing) -> {
+            Mailbox box = existing != null ? existing : new Mailbox(id);
+            box.pending++;
+            return box;
+        });
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mailbox.post(() -> {
+            try {
+                result.complete(command.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                release(mailbox);
+            }
+        });
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    int size() {
+        return mailboxes.size();
+    }
+
+    private void release(Mailbox mailbox) {
+        mailboxes.computeIfPresent(mailbox.ticketId, (id, box) -> box == mailbox && --box.pending == 0 ? null : box);
+    }
+
+    private static final class Mailbox {
+        private final int ticketId;
+        private int pending;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(int ticketId) {
+            this.ticketId = ticketId;
+        }
+
+        private void post(Runnable command) {
+            queue.add(command);
+            if (scheduled.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("ticket-" + ticketId).start(this::drain);
+            }
+        }
+
+        private void drain() {
+            CURRENT.set(this);
+            try {
+                do {
+                    Runnable command;
+                    while ((command = queue.poll()) != null) {
+                        command.run();
+                    }
+                    scheduled.set(false);
+                } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -3,17 +3,39 @@ package com.ticketer.services;
 import com.ticketer.models.Ticket;
 import com.ticketer.models.Order;
 import com.ticketer.models.OrderItem;
+import com.ticketer.models.TicketChange;
+import com.ticketer.models.TicketChangeSet;
+import com.ticketer.models.TicketEvent;
+import com.ticketer.models.TicketStatus;
+import com.ticketer.models.TicketSummary;
 import com.ticketer.repositories.TicketRepository;
+import com.ticketer.repositories.TicketTransitions;
 import com.ticketer.exceptions.EntityNotFoundException;
 import com.ticketer.exceptions.InvalidInputException;
 import com.ticketer.exceptions.ActionNotAllowedException;
+import com.ticketer.exceptions.PreconditionFailedException;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -22,15 +44,51 @@ public class TicketService {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TicketService.class);
 
     private final TicketRepository ticketRepository;
+    private final TicketExecutor executor;
     private final Clock clock;
-    private int ticketIdCounter = 0;
-    private LocalDate lastTicketDate;
+    private final AtomicInteger ticketIdCounter = new AtomicInteger();
+    private final ReentrantReadWriteLock dayLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService rolloverScheduler;
+    private volatile LocalDate lastTicketDate;
+    private final List<Consumer<TicketEvent>> listeners = new CopyOnWriteArrayList<>();
 
     @Autowired
+    public TicketService(TicketRepository ticketRepository, Clock clock,
+            @Value("${ticket.execution:locked}") String execution) {
+        this(ticketRepository, clock, TicketExecutor.forMode(execution));
+    }
+
     public TicketService(TicketRepository ticketRepository, Clock clock) {
+        this(ticketRepository, clock, System.getProperty("ticket.execution", "locked"));
+    }
+
+    TicketService(TicketRepository ticketRepository, Clock clock, TicketExecutor executor) {
         this.ticketRepository = ticketRepository;
         this.clock = clock;
+        this.executor = withinDay(executor);
+        this.rolloverScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ticket-day-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeTicketCounter();
+        scheduleRollover();
+    }
+
+    private TicketExecutor withinDay(TicketExecutor executor) {
+        return new TicketExecutor() {
+            @Override
+            public <T> T execute(int ticketId, Supplier<T> command) {
+                return executor.execute(ticketId, () -> {
+                    dayLock.readLock().lock();
+                    try {
+                        return command.get();
+                    } finally {
+                        dayLock.readLock().unlock();
+                    }
+                });
+            }
+        };
     }
 
     public TicketService(TicketRepository ticketRepository) {
@@ -41,73 +99,122 @@ public class TicketService {
         return ticketRepository;
     }
 
-    private void initializeTicketCounter() {
-        int maxId = 0;
-        for (Ticket t : ticketRepository.findAllActive()) {
-            if (t.getId() > maxId)
-                maxId = t.getId();
-        }
-        for (Ticket t : ticketRepository.findAllCompleted()) {
-            if (t.getId() > maxId)
-                maxId = t.getId();
-        }
-        for (Ticket t : ticketRepository.findAllClosed()) {
-            if (t.getId() > maxId)
-                maxId = t.getId();
-        }
+    @PreDestroy
+    public void close() {
+        rolloverScheduler.shutdownNow();
+    }
 
-        Ticket maxTicket = getTicket(maxId);
-        if (maxTicket != null) {
-            LocalDate ticketDate = LocalDate.ofInstant(maxTicket.getCreatedAt(), ZoneId.systemDefault());
-            LocalDate today = LocalDate.now(clock.withZone(ZoneId.systemDefault()));
-
-            if (!ticketDate.equals(today)) {
-                logger.info("Tickets from previous day (last ticket date: {}). Resetting counter and clearing tickets.",
-                        ticketDate);
-                serializeClosedTickets();
-                clearAllTickets();
-                this.lastTicketDate = today;
-            } else {
-                this.ticketIdCounter = maxId;
-                this.lastTicketDate = today;
+    public void addListener(Consumer<TicketEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void publish(TicketEvent event) {
+        for (Consumer<TicketEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("Ticket event listener failed for {}", event, e);
             }
-        } else {
-            this.ticketIdCounter = 0;
-            this.lastTicketDate = LocalDate.now(clock.withZone(ZoneId.systemDefault()));
+        }
+    }
+
+    private void save(Ticket ticket) {
+        ticketRepository.save(ticket);
+        publish(TicketEvent.of(TicketEvent.Type.TICKET_UPDATED, ticket));
+    }
+
+    private Ticket reopen(Ticket ticket) {
+        ticketRepository.moveToActive(ticket.getId());
+        Ticket reopened = ticketRepository.findById(ticket.getId()).orElse(ticket);
+        reopened.setStatus(TicketStatus.ACTIVE);
+        publish(TicketEvent.of(TicketEvent.Type.TICKET_MOVED, reopened));
+        return reopened;
+    }
+
+    private void initializeTicketCounter() {
+        LocalDate today = today();
+        ticketIdCounter.set(ticketRepository.lastTicketId());
+        lastTicketDate = ticketRepository.lastTicketCreatedAt()
+                .map(createdAt -> LocalDate.ofInstant(createdAt, ZoneId.systemDefault()))
+                .orElse(today);
+        if (!lastTicketDate.equals(today)) {
+            logger.info("Tickets from previous day (last ticket date: {}). Rolling over.", lastTicketDate);
+            rollOver(today);
         }
     }
 
     public Ticket createTicket(String tableNumber) {
-        checkAndResetDailyCounter();
+        rollOverIfNewDay();
         logger.info("Creating ticket for table: {}", tableNumber);
         if (tableNumber == null || tableNumber.trim().isEmpty()) {
             throw new InvalidInputException("Table number cannot be empty");
         }
-        int id = generateTicketId();
-        Ticket ticket = new Ticket(id);
-        ticket.setTableNumber(tableNumber);
-        ticket.setStatus("ACTIVE");
-        return ticketRepository.save(ticket);
-    }
-
-    private synchronized int generateTicketId() {
-        return ++ticketIdCounter;
-    }
-
-    private synchronized void checkAndResetDailyCounter() {
-        LocalDate today = LocalDate.now(clock.withZone(ZoneId.systemDefault()));
-        if (lastTicketDate != null && !lastTicketDate.equals(today)) {
-            logger.info("New day detected (was: {}, now: {}). Resetting tickets.", lastTicketDate, today);
-            serializeClosedTickets();
-            clearAllTickets();
-            this.lastTicketDate = today;
-        } else if (lastTicketDate == null) {
-            this.lastTicketDate = today;
+        dayLock.readLock().lock();
+        try {
+            Ticket ticket = new Ticket(ticketIdCounter.incrementAndGet());
+            ticket.setTableNumber(tableNumber);
+            ticket.setStatus(TicketStatus.ACTIVE);
+            Ticket saved = ticketRepository.save(ticket);
+            publish(TicketEvent.of(TicketEvent.Type.TICKET_CREATED, ticket));
+            return saved;
+        } finally {
+            dayLock.readLock().unlock();
+        }
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock.withZone(ZoneId.systemDefault()));
+    }
+
+    private void rollOverIfNewDay() {
+        LocalDate today = today();
+        if (!today.equals(lastTicketDate)) {
+            rollOver(today);
+        }
+    }
+
+    void rollOver(LocalDate today) {
+        dayLock.writeLock().lock();
+        try {
+            LocalDate previous = lastTicketDate;
+            if (today.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                logger.info("New day detected (was: {}, now: {}). Handing off tickets.", previous, today);
+                ticketRepository.rollOver(previous);
+                ticketIdCounter.set(0);
+                publish(TicketEvent.reset());
+            }
+            lastTicketDate = today;
+        } finally {
+            dayLock.writeLock().unlock();
+        }
+    }
+
+    private void scheduleRollover() {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(ZoneId.systemDefault()));
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+        long delay = Duration.between(now, midnight).toMillis() + 1000;
+        try {
+            rolloverScheduler.schedule(this::runScheduledRollover, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Rollover scheduler is shut down");
+        }
+    }
+
+    private void runScheduledRollover() {
+        try {
+            rollOverIfNewDay();
+        } catch (RuntimeException e) {
+            logger.error("Scheduled ticket day rollover failed", e);
+        } finally {
+            scheduleRollover();
         }
     }
 
     public void resetTicketCounter() {
-        this.ticketIdCounter = 0;
+        ticketIdCounter.set(0);
     }
 
     public Ticket getTicket(int ticketId) {
@@ -115,138 +222,174 @@ public class TicketService {
     }
 
     public void addOrderToTicket(int ticketId, Order order) {
-        logger.info("Adding order to ticket: {}", ticketId);
-        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket with ID " + ticketId + " not found.");
-        }
+        executor.execute(ticketId, () -> {
+            logger.info("Adding order to ticket: {}", ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket with ID " + ticketId + " not found.");
+            }
 
-        if (ticketRepository.findAllClosed().contains(ticket)) {
-            throw new ActionNotAllowedException("Cannot add orders to a closed ticket.");
-        }
+            if (ticket.getStatus() == TicketStatus.CLOSED) {
+                throw new ActionNotAllowedException("Cannot add orders to a closed ticket.");
+            }
 
-        if (ticketRepository.findAllCompleted().contains(ticket)) {
-            ticketRepository.moveToActive(ticket.getId());
-        }
+            if (ticket.getStatus() == TicketStatus.COMPLETED) {
+                ticket = reopen(ticket);
+            }
 
-        ticket.addOrder(order);
-        ticketRepository.save(ticket);
+            ticket.apply(TicketChange.orderAdded(order));
+            save(ticket);
+        });
     }
 
     public void addItemToOrder(int ticketId, int orderIndex, OrderItem item, String comment) {
-        logger.info("Adding item {} to order {} on ticket {}", item.getName(), orderIndex, ticketId);
-        if (item.getName() == null || item.getName().trim().isEmpty()) {
-            throw new InvalidInputException("Item name cannot be empty");
-        }
+        executor.execute(ticketId, () -> {
+            logger.info("Adding item {} to order {} on ticket {}", item.getName(), orderIndex, ticketId);
+            if (item.getName() == null || item.getName().trim().isEmpty()) {
+                throw new InvalidInputException("Item name cannot be empty");
+            }
 
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (orderIndex < 0 || orderIndex >= ticket.getOrders().size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
-        }
-        if (ticketRepository.findAllCompleted().contains(ticket)) {
-            ticketRepository.moveToActive(ticket.getId());
-        }
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (orderIndex < 0 || orderIndex >= ticket.getOrders().size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            if (ticket.getStatus() == TicketStatus.COMPLETED) {
+                ticket = reopen(ticket);
+            }
 
-        if (comment != null && !comment.trim().isEmpty()) {
-            item.setComment(comment);
-        }
-        ticket.getOrders().get(orderIndex).addItem(item);
-        ticketRepository.save(ticket);
+            if (comment != null && !comment.trim().isEmpty()) {
+                item.setComment(comment);
+            }
+            ticket.apply(TicketChange.itemAdded(orderIndex, item));
+            save(ticket);
+        });
     }
 
     public void updateTicketComment(int ticketId, String comment) {
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (!"ACTIVE".equalsIgnoreCase(ticket.getStatus())) {
-            throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
-        }
-        ticket.setComment(comment);
-        ticketRepository.save(ticket);
+        executor.execute(ticketId, () -> {
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (ticket.getStatus() != TicketStatus.ACTIVE) {
+                throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
+            }
+            ticket.apply(TicketChange.ticketComment(comment));
+            save(ticket);
+        });
     }
 
     public void updateOrderComment(int ticketId, int orderIndex, String comment) {
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (!"ACTIVE".equalsIgnoreCase(ticket.getStatus())) {
-            throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
-        }
-        List<Order> orders = ticket.getOrders();
-        if (orderIndex < 0 || orderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
-        }
-        orders.get(orderIndex).setComment(comment);
-        ticketRepository.save(ticket);
+        executor.execute(ticketId, () -> {
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (ticket.getStatus() != TicketStatus.ACTIVE) {
+                throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
+            }
+            List<Order> orders = ticket.getOrders();
+            if (orderIndex < 0 || orderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            ticket.apply(TicketChange.orderComment(orderIndex, comment));
+            save(ticket);
+        });
     }
 
     public void updateItemComment(int ticketId, int orderIndex, int itemIndex, String comment) {
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (!"ACTIVE".equalsIgnoreCase(ticket.getStatus())) {
-            throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
-        }
-        List<Order> orders = ticket.getOrders();
-        if (orderIndex < 0 || orderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
-        }
-        List<OrderItem> items = orders.get(orderIndex).getItems();
-        if (itemIndex < 0 || itemIndex >= items.size()) {
-            throw new EntityNotFoundException("Item index " + itemIndex + " invalid");
-        }
-        items.get(itemIndex).setComment(comment);
-        ticketRepository.save(ticket);
+        executor.execute(ticketId, () -> {
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (ticket.getStatus() != TicketStatus.ACTIVE) {
+                throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
+            }
+            List<Order> orders = ticket.getOrders();
+            if (orderIndex < 0 || orderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            List<OrderItem> items = orders.get(orderIndex).getItems();
+            if (itemIndex < 0 || itemIndex >= items.size()) {
+                throw new EntityNotFoundException("Item index " + itemIndex + " invalid");
+            }
+            ticket.apply(TicketChange.itemComment(orderIndex, itemIndex, comment));
+            save(ticket);
+        });
     }
 
     public void removeItemFromOrder(int ticketId, int orderIndex, OrderItem item) {
-        logger.info("Removing item {} from order {} on ticket {}", item.getName(), orderIndex, ticketId);
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (orderIndex < 0 || orderIndex >= ticket.getOrders().size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
-        }
-        if (!ticket.getOrders().get(orderIndex).removeItem(item)) {
-            throw new EntityNotFoundException("Item not found in order " + orderIndex);
-        }
-        ticketRepository.save(ticket);
+        executor.execute(ticketId, () -> {
+            logger.info("Removing item {} from order {} on ticket {}", item.getName(), orderIndex, ticketId);
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (orderIndex < 0 || orderIndex >= ticket.getOrders().size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            int itemIndex = ticket.getOrders().get(orderIndex).getItems().indexOf(item);
+            if (itemIndex < 0) {
+                throw new EntityNotFoundException("Item not found in order " + orderIndex);
+            }
+            ticket.apply(TicketChange.itemRemoved(orderIndex, itemIndex));
+            save(ticket);
+        });
     }
 
     public void removeItemFromOrderByIndex(int ticketId, int orderIndex, int itemIndex) {
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (orderIndex < 0 || orderIndex >= ticket.getOrders().size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
-        }
-        OrderItem removed = ticket.getOrders().get(orderIndex).removeItemByIndex(itemIndex);
-        if (removed == null) {
-            throw new EntityNotFoundException("Item index " + itemIndex + " invalid in order " + orderIndex);
-        }
-        ticketRepository.save(ticket);
+        executor.execute(ticketId, () -> {
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (orderIndex < 0 || orderIndex >= ticket.getOrders().size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            if (itemIndex < 0 || itemIndex >= ticket.getOrders().get(orderIndex).getItems().size()) {
+                throw new EntityNotFoundException("Item index " + itemIndex + " invalid in order " + orderIndex);
+            }
+            ticket.apply(TicketChange.itemRemoved(orderIndex, itemIndex));
+            save(ticket);
+        });
     }
 
     public void removeOrder(int ticketId, int orderIndex) {
-        logger.info("Removing order {} from ticket {}", orderIndex, ticketId);
+        executor.execute(ticketId, () -> {
+            logger.info("Removing order {} from ticket {}", orderIndex, ticketId);
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            List<Order> orders = ticket.getOrders();
+            if (orderIndex < 0 || orderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            ticket.apply(TicketChange.orderRemoved(orderIndex));
+            save(ticket);
+        });
+    }
+
+    public <T> T executeIfMatch(int ticketId, Predicate<Ticket> precondition, Supplier<T> command) {
+        checkPrecondition(ticketId, precondition);
+        return executor.execute(ticketId, () -> {
+            checkPrecondition(ticketId, precondition);
+            return command.get();
+        });
+    }
+
+    private void checkPrecondition(int ticketId, Predicate<Ticket> precondition) {
         Ticket ticket = getTicket(ticketId);
         if (ticket == null) {
             throw new EntityNotFoundException("Ticket " + ticketId + " not found");
         }
-        List<Order> orders = ticket.getOrders();
-        if (orderIndex < 0 || orderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+        if (!precondition.test(ticket)) {
+            throw new PreconditionFailedException("Ticket " + ticketId + " was modified by another request.");
         }
-        ticket.removeOrder(orders.get(orderIndex));
-        ticketRepository.save(ticket);
     }
 
     public Order getOrder(int ticketId, int orderIndex) {
@@ -262,86 +405,104 @@ public class TicketService {
     }
 
     public void moveToCompleted(int ticketId) {
-        logger.info("Moving ticket {} to completed", ticketId);
-        Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
-                () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
+        executor.execute(ticketId, () -> {
+            logger.info("Moving ticket {} to completed", ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
+                    () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
 
-        if (ticket.getClosedAt() != null) {
-            throw new ActionNotAllowedException("Cannot move a closed ticket to completed.");
-        }
-        ticket.setStatus("COMPLETED");
-        ticketRepository.save(ticket);
-        ticketRepository.moveToCompleted(ticketId);
+            TicketTransitions.require(ticket.getStatus(), TicketStatus.COMPLETED);
+            ticket.apply(TicketChange.statusChanged(TicketStatus.COMPLETED));
+            ticketRepository.moveToCompleted(ticketId);
+            publish(TicketEvent.of(TicketEvent.Type.TICKET_MOVED, ticket));
+        });
     }
 
     public void moveToClosed(int ticketId) {
-        logger.info("Moving ticket {} to closed", ticketId);
-        Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
-                () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
+        executor.execute(ticketId, () -> {
+            logger.info("Moving ticket {} to closed", ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
+                    () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
 
-        ticket.setStatus("CLOSED");
-        ticketRepository.save(ticket);
-        ticketRepository.moveToClosed(ticketId);
+            TicketTransitions.require(ticket.getStatus(), TicketStatus.CLOSED);
+            ticket.apply(TicketChange.statusChanged(TicketStatus.CLOSED));
+            ticketRepository.moveToClosed(ticketId);
+            publish(TicketEvent.of(TicketEvent.Type.TICKET_MOVED, ticket));
+        });
     }
 
     public void moveToActive(int ticketId) {
-        logger.info("Moving ticket {} to active", ticketId);
-        Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
-                () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
+        executor.execute(ticketId, () -> {
+            logger.info("Moving ticket {} to active", ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
+                    () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
 
-        if (ticket.getClosedAt() != null) {
-            throw new ActionNotAllowedException("Cannot move a closed ticket to active.");
-        }
-        ticket.setStatus("ACTIVE");
-        ticketRepository.save(ticket);
-        ticketRepository.moveToActive(ticketId);
+            TicketTransitions.require(ticket.getStatus(), TicketStatus.ACTIVE);
+            ticket.apply(TicketChange.statusChanged(TicketStatus.ACTIVE));
+            ticketRepository.moveToActive(ticketId);
+            publish(TicketEvent.of(TicketEvent.Type.TICKET_MOVED, ticket));
+        });
     }
 
     public void removeTicket(int ticketId) {
-        Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
-                () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
+        executor.execute(ticketId, () -> {
+            Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
+                    () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
 
-        if ("CLOSED".equalsIgnoreCase(ticket.getStatus())) {
-            throw new ActionNotAllowedException("Cannot delete closed tickets.");
-        }
+            if (ticket.getStatus() == TicketStatus.CLOSED) {
+                throw new ActionNotAllowedException("Cannot delete closed tickets.");
+            }
 
-        ticketRepository.deleteById(ticketId);
+            ticketRepository.deleteById(ticketId);
+            publish(TicketEvent.of(TicketEvent.Type.TICKET_REMOVED, ticket));
+        });
     }
 
     public void moveAllToClosed() {
-        List<Ticket> active = new java.util.ArrayList<>(ticketRepository.findAllActive());
-        for (Ticket t : active) {
-            ticketRepository.moveToCompleted(t.getId());
-            ticketRepository.moveToClosed(t.getId());
-        }
-
+        closeAll(ticketRepository.findAllActive(), ticketRepository::moveToClosed);
         moveCompletedToClosed();
     }
 
     public void moveCompletedToClosed() {
-        List<Ticket> completed = new java.util.ArrayList<>(ticketRepository.findAllCompleted());
-        for (Ticket t : completed) {
-            ticketRepository.moveToClosed(t.getId());
-        }
+        closeAll(ticketRepository.findAllCompleted(), ticketRepository::moveToClosed);
     }
 
     public void forceCloseCompletedTickets() {
         if (ticketRepository instanceof com.ticketer.repositories.FileTicketRepository) {
             com.ticketer.repositories.FileTicketRepository repo = (com.ticketer.repositories.FileTicketRepository) ticketRepository;
-            List<Ticket> completed = new java.util.ArrayList<>(repo.findAllCompleted());
-            for (Ticket t : completed) {
-                repo.moveToClosed(t.getId(), false);
-            }
+            closeAll(repo.findAllCompleted(), id -> repo.moveToClosed(id, false));
         } else {
             moveCompletedToClosed();
         }
     }
 
+    private void closeAll(List<Ticket> tickets, IntConsumer close) {
+        for (Ticket t : new java.util.ArrayList<>(tickets)) {
+            int ticketId = t.getId();
+            executor.execute(ticketId, () -> {
+                Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+                if (ticket == null || ticket.getStatus() == TicketStatus.CLOSED) {
+                    return;
+                }
+                ticket.apply(TicketChange.statusChanged(TicketStatus.CLOSED));
+                close.accept(ticketId);
+                publish(TicketEvent.of(TicketEvent.Type.TICKET_MOVED, ticket));
+            });
+        }
+    }
+
     public void discardActiveTickets() {
         logger.info("Discarding all active tickets.");
         List<Ticket> active = new java.util.ArrayList<>(ticketRepository.findAllActive());
         for (Ticket t : active) {
-            ticketRepository.deleteById(t.getId());
+            int ticketId = t.getId();
+            executor.execute(ticketId, () -> {
+                Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+                if (ticket == null || ticket.getStatus() != TicketStatus.ACTIVE) {
+                    return;
+                }
+                ticketRepository.deleteById(ticketId);
+                publish(TicketEvent.of(TicketEvent.Type.TICKET_REMOVED, ticket));
+            });
         }
     }
 
@@ -351,11 +512,13 @@ public class TicketService {
 
     public void serializeClosedTickets() {
         ticketRepository.persistClosedTickets();
+        publish(TicketEvent.reset());
     }
 
     public void clearAllTickets() {
         ticketRepository.deleteAll();
         resetTicketCounter();
+        publish(TicketEvent.reset());
     }
 
     public boolean areAllTicketsClosed() {
@@ -374,146 +537,238 @@ public class TicketService {
         return ticketRepository.findAllCompleted();
     }
 
+    public List<Ticket> getOpenTicketsForTable(String tableNumber) {
+        return ticketRepository.findOpenByTable(tableNumber);
+    }
+
     public List<Ticket> getClosedTickets() {
         return ticketRepository.findAllClosed();
     }
 
+    public List<TicketSummary> getClosedTicketSummaries() {
+        return ticketRepository.findClosedSummaries();
+    }
+
+    public TicketChangeSet getTicketChanges(long since) {
+        return ticketRepository.changesSince(since);
+    }
+
     public long getClosedTicketsSubtotal() {
-        return getClosedTickets().stream().mapToLong(Ticket::getSubtotal).sum();
+        return ticketRepository.closedSubtotal();
     }
 
     public long getClosedTicketsTotal() {
-        return getClosedTickets().stream().mapToLong(Ticket::getTotal).sum();
+        return ticketRepository.closedTotal();
     }
 
     public long getActiveAndCompletedTicketsSubtotal() {
-        List<Ticket> active = getActiveTickets();
-        List<Ticket> completed = getCompletedTickets();
-        return active.stream().mapToLong(Ticket::getSubtotal).sum() +
-                completed.stream().mapToLong(Ticket::getSubtotal).sum();
+        return ticketRepository.activeAndCompletedSubtotal();
     }
 
     public long getActiveAndCompletedTicketsTotal() {
-        List<Ticket> active = getActiveTickets();
-        List<Ticket> completed = getCompletedTickets();
-        return active.stream().mapToLong(Ticket::getTotal).sum() +
-                completed.stream().mapToLong(Ticket::getTotal).sum();
+        return ticketRepository.activeAndCompletedTotal();
     }
 
     public Ticket updateItemPrice(int ticketId, int orderIndex, int itemIndex, long newPrice) {
-        logger.info("Updating item price: ticket={}, order={}, item={}, newPrice={}", ticketId, orderIndex, itemIndex, newPrice);
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        if (!"CLOSED".equalsIgnoreCase(ticket.getStatus())) {
-            throw new ActionNotAllowedException("Can only edit prices on closed tickets.");
-        }
-        if (newPrice < 0) {
-            throw new InvalidInputException("Price cannot be negative");
-        }
-        List<Order> orders = ticket.getOrders();
-        if (orderIndex < 0 || orderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
-        }
-        Order order = orders.get(orderIndex);
-        List<OrderItem> items = order.getItems();
-        if (itemIndex < 0 || itemIndex >= items.size()) {
-            throw new EntityNotFoundException("Item index " + itemIndex + " invalid");
-        }
-        items.get(itemIndex).setMainPrice(newPrice);
-        items.get(itemIndex).setSidePrice(0);
-        order.recalculateSubtotal();
-        ticket.recalculatePersistedTotals();
-        ticketRepository.save(ticket);
-        return ticket;
+        return executor.execute(ticketId, () -> {
+            logger.info("Updating item price: ticket={}, order={}, item={}, newPrice={}", ticketId, orderIndex, itemIndex, newPrice);
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (ticket.getStatus() != TicketStatus.CLOSED) {
+                throw new ActionNotAllowedException("Can only edit prices on closed tickets.");
+            }
+            if (newPrice < 0) {
+                throw new InvalidInputException("Price cannot be negative");
+            }
+            List<Order> orders = ticket.getOrders();
+            if (orderIndex < 0 || orderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
+            }
+            List<OrderItem> items = orders.get(orderIndex).getItems();
+            if (itemIndex < 0 || itemIndex >= items.size()) {
+                throw new EntityNotFoundException("Item index " + itemIndex + " invalid");
+            }
+            ticket.apply(TicketChange.priceChanged(orderIndex, itemIndex, newPrice));
+            save(ticket);
+            return ticket;
+        });
     }
 
     public Ticket moveItemBetweenOrders(int ticketId, int fromOrderIndex, int itemIndex, int toOrderIndex) {
-        logger.info("Moving item {} from order {} to order {} on ticket {}", itemIndex, fromOrderIndex, toOrderIndex, ticketId);
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        List<Order> orders = ticket.getOrders();
-        if (fromOrderIndex < 0 || fromOrderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Source order index " + fromOrderIndex + " invalid");
-        }
-        if (toOrderIndex < 0 || toOrderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Target order index " + toOrderIndex + " invalid");
-        }
-        if (fromOrderIndex == toOrderIndex) {
-            throw new InvalidInputException("Source and target order must be different");
-        }
-
-        Order sourceOrder = orders.get(fromOrderIndex);
-        Order targetOrder = orders.get(toOrderIndex);
+        return executor.execute(ticketId, () -> {
+            logger.info("Moving item {} from order {} to order {} on ticket {}", itemIndex, fromOrderIndex, toOrderIndex, ticketId);
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            List<Order> orders = ticket.getOrders();
+            if (fromOrderIndex < 0 || fromOrderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Source order index " + fromOrderIndex + " invalid");
+            }
+            if (toOrderIndex < 0 || toOrderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Target order index " + toOrderIndex + " invalid");
+            }
+            if (fromOrderIndex == toOrderIndex) {
+                throw new InvalidInputException("Source and target order must be different");
+            }
 
-        OrderItem item = sourceOrder.removeItemByIndex(itemIndex);
-        if (item == null) {
-            throw new EntityNotFoundException("Item index " + itemIndex + " invalid in order " + fromOrderIndex);
-        }
-        targetOrder.addItem(item);
+            if (itemIndex < 0 || itemIndex >= orders.get(fromOrderIndex).getItems().size()) {
+                throw new EntityNotFoundException("Item index " + itemIndex + " invalid in order " + fromOrderIndex);
+            }
+            ticket.apply(TicketChange.itemMoved(fromOrderIndex, itemIndex, toOrderIndex));
+            save(ticket);
+            return ticket;
+        });
+    }
 
-        if (sourceOrder.getItems().isEmpty()) {
-            ticket.removeOrder(sourceOrder);
-        }
+    public Ticket mergeOrders(int ticketId, int fromOrderIndex, int intoOrderIndex) {
+        return executor.execute(ticketId, () -> {
+            logger.info("Merging order {} into order {} on ticket {}", fromOrderIndex, intoOrderIndex, ticketId);
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            List<Order> orders = ticket.getOrders();
+            if (fromOrderIndex < 0 || fromOrderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Source order index " + fromOrderIndex + " invalid");
+            }
+            if (intoOrderIndex < 0 || intoOrderIndex >= orders.size()) {
+                throw new EntityNotFoundException("Target order index " + intoOrderIndex + " invalid");
+            }
+            if (fromOrderIndex == intoOrderIndex) {
+                throw new InvalidInputException("Source and target order must be different");
+            }
 
-        ticketRepository.save(ticket);
-        return ticket;
+            ticket.apply(TicketChange.ordersMerged(fromOrderIndex, intoOrderIndex));
+            save(ticket);
+            return ticket;
+        });
     }
 
-    public Ticket mergeOrders(int ticketId, int fromOrderIndex, int intoOrderIndex) {
-        logger.info("Merging order {} into order {} on ticket {}", fromOrderIndex, intoOrderIndex, ticketId);
-        Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            throw new EntityNotFoundException("Ticket " + ticketId + " not found");
-        }
-        List<Order> orders = ticket.getOrders();
-        if (fromOrderIndex < 0 || fromOrderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Source order index " + fromOrderIndex + " invalid");
-        }
-        if (intoOrderIndex < 0 || intoOrderIndex >= orders.size()) {
-            throw new EntityNotFoundException("Target order index " + intoOrderIndex + " invalid");
-        }
-        if (fromOrderIndex == intoOrderIndex) {
-            throw new InvalidInputException("Source and target order must be different");
-        }
+    public Ticket applyBatch(int ticketId, List<TicketChange> changes) {
+        return executor.execute(ticketId, () -> {
+            logger.info("Applying batch of {} changes to ticket {}", changes.size(), ticketId);
+            Ticket ticket = getTicket(ticketId);
+            if (ticket == null) {
+                throw new EntityNotFoundException("Ticket " + ticketId + " not found");
+            }
+            if (changes.isEmpty()) {
+                return ticket;
+            }
+            validateBatch(ticket, changes);
 
-        Order sourceOrder = orders.get(fromOrderIndex);
-        Order targetOrder = orders.get(intoOrderIndex);
+            boolean addsItems = changes.stream().anyMatch(c -> c.getType() == TicketChange.Type.ITEM_ADDED);
+            if (addsItems && ticket.getStatus() == TicketStatus.COMPLETED) {
+                ticket = reopen(ticket);
+            }
+            for (TicketChange change : changes) {
+                ticket.apply(change);
+            }
+            save(ticket);
+            return ticket;
+        });
+    }
+
+    private void validateBatch(Ticket ticket, List<TicketChange> changes) {
+        boolean active = ticket.getStatus() == TicketStatus.ACTIVE;
+        List<Integer> sizes = new java.util.ArrayList<>();
+        for (Order order : ticket.getOrders()) {
+            sizes.add(order.getItems().size());
+        }
+        for (TicketChange change : changes) {
+            switch (change.getType()) {
+                case ORDER_ADDED -> sizes.add(change.getOrder().getItems().size());
+                case ORDER_REMOVED -> sizes.remove(checkOrderIndex(sizes, change.getOrderIndex()));
+                case ITEM_ADDED -> {
+                    if (change.getItem().getName() == null || change.getItem().getName().trim().isEmpty()) {
+                        throw new InvalidInputException("Item name cannot be empty");
+                    }
+                    int order = checkOrderIndex(sizes, change.getOrderIndex());
+                    sizes.set(order, sizes.get(order) + 1);
+                }
+                case ITEM_REMOVED -> {
+                    int order = checkOrderIndex(sizes, change.getOrderIndex());
+                    checkItemIndex(sizes, order, change.getItemIndex());
+                    sizes.set(order, sizes.get(order) - 1);
+                }
+                case ITEM_MOVED, ORDER_MERGED -> {
+                    int from = checkOrderIndex(sizes, change.getOrderIndex());
+                    int to = checkOrderIndex(sizes, change.getTargetIndex());
+                    if (from == to) {
+                        throw new InvalidInputException("Source and target order must be different");
+                    }
+                    int moved = sizes.get(from);
+                    if (change.getType() == TicketChange.Type.ITEM_MOVED) {
+                        checkItemIndex(sizes, from, change.getItemIndex());
+                        moved = 1;
+                    }
+                    sizes.set(to, sizes.get(to) + moved);
+                    sizes.set(from, sizes.get(from) - moved);
+                    if (sizes.get(from) == 0) {
+                        sizes.remove(from);
+                    }
+                }
+                case TICKET_COMMENT, ORDER_COMMENT, ITEM_COMMENT -> {
+                    if (!active) {
+                        throw new ActionNotAllowedException("Cannot modify comments on a non-active ticket.");
+                    }
+                    if (change.getType() != TicketChange.Type.TICKET_COMMENT) {
+                        int order = checkOrderIndex(sizes, change.getOrderIndex());
+                        if (change.getType() == TicketChange.Type.ITEM_COMMENT) {
+                            checkItemIndex(sizes, order, change.getItemIndex());
+                        }
+                    }
+                }
+                default -> throw new InvalidInputException(change.getType() + " cannot be part of a batch");
+            }
+        }
+    }
 
-        List<OrderItem> itemsToMove = sourceOrder.getItems();
-        for (OrderItem item : itemsToMove) {
-            targetOrder.addItem(item);
+    private static int checkOrderIndex(List<Integer> sizes, Integer orderIndex) {
+        if (orderIndex == null || orderIndex < 0 || orderIndex >= sizes.size()) {
+            throw new EntityNotFoundException("Order index " + orderIndex + " invalid");
         }
+        return orderIndex;
+    }
 
-        ticket.removeOrder(sourceOrder);
-        ticketRepository.save(ticket);
-        return ticket;
+    private static void checkItemIndex(List<Integer> sizes, int orderIndex, Integer itemIndex) {
+        if (itemIndex == null || itemIndex < 0 || itemIndex >= sizes.get(orderIndex)) {
+            throw new EntityNotFoundException("Item index " + itemIndex + " invalid in order " + orderIndex);
+        }
     }
 
     public void sendToKitchen(int ticketId) {
-        logger.info("Sending ticket {} to kitchen", ticketId);
-        ticketRepository.findById(ticketId).orElseThrow(
-                () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
-        ticketRepository.addTicketToKitchen(ticketId);
+        executor.execute(ticketId, () -> {
+            logger.info("Sending ticket {} to kitchen", ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
+                    () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
+            ticketRepository.addTicketToKitchen(ticketId);
+            publish(TicketEvent.of(TicketEvent.Type.KITCHEN_ADDED, ticket));
+        });
     }
 
     public void completeKitchenTicket(int ticketId) {
-        logger.info("Completing kitchen ticket {}", ticketId);
-        ticketRepository.findById(ticketId).orElseThrow(
-                () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
+        executor.execute(ticketId, () -> {
+            logger.info("Completing kitchen ticket {}", ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId).orElseThrow(
+                    () -> new EntityNotFoundException("Ticket with ID " + ticketId + " not found."));
 
-        ticketRepository.removeTicketFromKitchen(ticketId);
+            ticketRepository.removeTicketFromKitchen(ticketId);
+            publish(TicketEvent.of(TicketEvent.Type.KITCHEN_REMOVED, ticket));
 
-        if (ticketRepository.findAllActive().stream().anyMatch(t -> t.getId() == ticketId)) {
-            moveToCompleted(ticketId);
-        }
+            if (ticket.getStatus() == TicketStatus.ACTIVE) {
+                moveToCompleted(ticketId);
+            }
+        });
     }
 
     public void removeFromKitchen(int ticketId) {
-        ticketRepository.removeTicketFromKitchen(ticketId);
+        executor.execute(ticketId, () -> {
+            ticketRepository.removeTicketFromKitchen(ticketId);
+            publish(new TicketEvent(TicketEvent.Type.KITCHEN_REMOVED, ticketId, null, 0));
+        });
     }
 
     public List<Ticket> getKitchenTickets() {
@@ -2,10 +2,13 @@ package com.ticketer.controllers;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,6 +35,7 @@ import com.ticketer.services.*;
 import com.ticketer.exceptions.InvalidInputException;
 import com.ticketer.exceptions.EntityNotFoundException;
 import com.ticketer.exceptions.GlobalExceptionHandler;
+import com.ticketer.exceptions.PreconditionFailedException;
 
 public class TicketControllerTest {
 
@@ -44,6 +48,12 @@ public class TicketControllerTest {
     @Mock
     private SettingsService settingsService;
 
+    @Mock
+    private TicketEventStream ticketEvents;
+
+    @Mock
+    private KitchenBoard kitchenBoard;
+
     @InjectMocks
     private TicketController ticketController;
 
@@ -167,7 +177,6 @@ public class TicketControllerTest {
     public void testAdditionalDelegations() throws Exception {
         Ticket t1 = new Ticket(1);
         when(ticketService.getCompletedTickets()).thenReturn(Collections.singletonList(t1));
-        when(ticketService.getClosedTickets()).thenReturn(Collections.singletonList(t1));
         when(ticketService.getTicket(1)).thenReturn(t1);
 
         mockMvc.perform(put("/api/tickets/1/completed"))
@@ -202,7 +211,16 @@ public class TicketControllerTest {
         mockMvc.perform(get("/api/tickets/closed"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.payload").isArray());
-        verify(ticketService, times(2)).getClosedTickets();
+        verify(ticketService).getClosedTickets();
+
+        when(ticketService.getClosedTicketSummaries()).thenReturn(List.of(
+                new TicketSummary(1, "T1", 1000, 1100, null, null)));
+        mockMvc.perform(get("/api/tickets/closed/summaries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload[0].id").value(1))
+                .andExpect(jsonPath("$.payload[0].status").value("CLOSED"))
+                .andExpect(jsonPath("$.payload[0].orders").doesNotExist());
+        verify(ticketService).getClosedTicketSummaries();
     }
 
     @Test
@@ -379,4 +397,190 @@ public class TicketControllerTest {
 
         verify(ticketService).mergeOrders(1, 0, 1);
     }
+
+    @Test
+    public void testGetTicketReturnsETagAndHonorsIfNoneMatch() throws Exception {
+        Ticket ticket = new Ticket(1);
+        ticket.setTableNumber("Table1");
+        when(ticketService.getTicket(1)).thenReturn(ticket);
+
+        String eTag = mockMvc.perform(get("/api/tickets/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/tickets/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/tickets/1").header("If-None-Match", "W/" + eTag))
+                .andExpect(status().isNotModified());
+
+        ticket.setComment("window seat");
+        ticket.setRevision(ticket.getRevision() + 1);
+        mockMvc.perform(get("/api/tickets/1").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload.comment").value("window seat"));
+        assertNotEquals(eTag, mockMvc.perform(get("/api/tickets/1")).andReturn().getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void testIfMatchAppliesMutationWhenVersionMatches() throws Exception {
+        Ticket ticket = new Ticket(1);
+        ticket.setTableNumber("Table1");
+        ticket.addOrder(new Order());
+        when(ticketService.getTicket(1)).thenReturn(ticket);
+        when(ticketService.executeIfMatch(eq(1), any(), any())).thenAnswer(invocation -> {
+            java.util.function.Predicate<Ticket> precondition = invocation.getArgument(1);
+            if (!precondition.test(ticket)) {
+                throw new PreconditionFailedException("stale");
+            }
+            return ((java.util.function.Supplier<?>) invocation.getArgument(2)).get();
+        });
+
+        String eTag = mockMvc.perform(get("/api/tickets/1")).andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(delete("/api/tickets/1/orders/0/items/0").header("If-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"));
+        verify(ticketService).removeItemFromOrderByIndex(1, 0, 0);
+
+        mockMvc.perform(delete("/api/tickets/1/orders/0/items/0").header("If-Match", "W/" + eTag + ", \"0.0\""))
+                .andExpect(status().isPreconditionFailed());
+        verify(ticketService).removeItemFromOrderByIndex(1, 0, 0);
+
+        mockMvc.perform(delete("/api/tickets/1/orders/0/items/0").header("If-Match", "\"0.0\", " + eTag))
+                .andExpect(status().isOk());
+        verify(ticketService, times(2)).removeItemFromOrderByIndex(1, 0, 0);
+    }
+
+    @Test
+    public void testIfMatchRejectsStaleVersion() throws Exception {
+        Ticket ticket = new Ticket(1);
+        ticket.setTableNumber("Table1");
+        ticket.addOrder(new Order());
+        when(ticketService.getTicket(1)).thenReturn(ticket);
+        when(ticketService.executeIfMatch(eq(1), any(), any())).thenAnswer(invocation -> {
+            java.util.function.Predicate<Ticket> precondition = invocation.getArgument(1);
+            if (!precondition.test(ticket)) {
+                throw new PreconditionFailedException("Ticket 1 was modified by another request.");
+            }
+            return ((java.util.function.Supplier<?>) invocation.getArgument(2)).get();
+        });
+
+        mockMvc.perform(put("/api/tickets/1/orders/0/items/0/price")
+                .header("If-Match", "\"0.99\"")
+                .contentType("application/json")
+                .content("{\"newPrice\":500}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(ticketService, never()).updateItemPrice(anyInt(), anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testApplyBatch() throws Exception {
+        Ticket ticket = new Ticket(1);
+        ticket.setTableNumber("Table1");
+        when(ticketService.getTicket(1)).thenReturn(ticket);
+
+        UUID menuItemId = UUID.randomUUID();
+        when(menuService.createItemOrderItem(eq(menuItemId), any()))
+                .thenAnswer(invocation -> OrderItem.forItem(menuItemId, "Burger", null, null, 1000, 0));
+
+        String json = "{\"operations\":["
+                + "{\"type\":\"ADD_ITEM\",\"orderIndex\":0,\"menuItemId\":\"" + menuItemId + "\",\"comment\":\"no onion\"},"
+                + "{\"type\":\"ADD_ITEM\",\"orderIndex\":0,\"menuItemId\":\"" + menuItemId + "\"},"
+                + "{\"type\":\"MOVE_ITEM\",\"orderIndex\":0,\"itemIndex\":1,\"targetOrderIndex\":1},"
+                + "{\"type\":\"TICKET_COMMENT\",\"comment\":\"birthday\"}]}";
+        mockMvc.perform(post("/api/tickets/1/batch")
+                .contentType("application/json")
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.payload.id").value(1));
+
+        org.mockito.ArgumentCaptor<List<TicketChange>> captor = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(ticketService).applyBatch(eq(1), captor.capture());
+        List<TicketChange> changes = captor.getValue();
+        assertEquals(4, changes.size());
+        assertEquals(TicketChange.Type.ITEM_ADDED, changes.get(0).getType());
+        assertEquals("no onion", changes.get(0).getItem().getComment());
+        assertEquals(TicketChange.Type.ITEM_MOVED, changes.get(2).getType());
+        assertEquals(1, changes.get(2).getTargetIndex());
+        assertEquals("birthday", changes.get(3).getText());
+
+        mockMvc.perform(post("/api/tickets/1/batch")
+                .contentType("application/json")
+                .content("{\"operations\":[{\"type\":\"REFUND\"}]}"))
+                .andExpect(status().isBadRequest());
+        verify(ticketService, times(1)).applyBatch(anyInt(), any());
+    }
+
+    @Test
+    public void testGetOpenTicketsForTable() throws Exception {
+        Ticket ticket = new Ticket(4);
+        ticket.setTableNumber("Patio 3");
+        when(ticketService.getOpenTicketsForTable("Patio 3")).thenReturn(List.of(ticket));
+
+        mockMvc.perform(get("/api/tickets/by-table/Patio 3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload[0].id").value(4))
+                .andExpect(jsonPath("$.payload.length()").value(1));
+        verify(ticketService).getOpenTicketsForTable("Patio 3");
+    }
+
+    @Test
+    public void testTicketChangesReturnsDeltaSinceSequence() throws Exception {
+        Ticket t1 = new Ticket(4);
+        when(ticketService.getTicketChanges(12L))
+                .thenReturn(new TicketChangeSet(15, false, List.of(t1), List.of(9)));
+
+        mockMvc.perform(get("/api/tickets/changes").param("since", "12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload.seq").value(15))
+                .andExpect(jsonPath("$.payload.reset").value(false))
+                .andExpect(jsonPath("$.payload.tickets[0].id").value(4))
+                .andExpect(jsonPath("$.payload.removed[0]").value(9));
+
+        when(ticketService.getTicketChanges(0L)).thenReturn(TicketChangeSet.full(15, List.of(t1)));
+        mockMvc.perform(get("/api/tickets/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payload.reset").value(true))
+                .andExpect(jsonPath("$.payload.removed").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventStreamPushesTicketEvents() throws Exception {
+        TicketEventStream stream = new TicketEventStream(ticketService, kitchenBoard, new com.fasterxml.jackson.databind.ObjectMapper(), 0);
+        org.mockito.ArgumentCaptor<java.util.function.Consumer<TicketEvent>> listener =
+                org.mockito.ArgumentCaptor.forClass(java.util.function.Consumer.class);
+        verify(ticketService).addListener(listener.capture());
+        org.mockito.ArgumentCaptor<java.util.function.Consumer<com.ticketer.dtos.KitchenBoardDto>> boardListener =
+                org.mockito.ArgumentCaptor.forClass(java.util.function.Consumer.class);
+        verify(kitchenBoard).addListener(boardListener.capture());
+        MockMvc eventsMvc = MockMvcBuilders
+                .standaloneSetup(new TicketController(ticketService, menuService, settingsService, stream))
+                .build();
+
+        org.springframework.test.web.servlet.MvcResult result = eventsMvc.perform(get("/api/tickets/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        listener.getValue().accept(new TicketEvent(TicketEvent.Type.TICKET_UPDATED, 7, TicketStatus.ACTIVE, 3));
+        boardListener.getValue().accept(new com.ticketer.dtos.KitchenBoardDto(4, 2, Map.of("Burger", 3.0)));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains("KITCHEN_BOARD") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains("event:TICKET_UPDATED"), body);
+        assertTrue(body.contains("\"ticketId\":7"), body);
+        assertTrue(body.contains("\"revision\":3"), body);
+        assertTrue(body.contains("event:KITCHEN_BOARD"), body);
+        assertTrue(body.contains("\"Burger\":3.0"), body);
+        stream.close();
+    }
 }
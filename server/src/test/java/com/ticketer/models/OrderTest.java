@@ -42,7 +42,7 @@ public class OrderTest {
         order.addItem(item1);
 
         List<OrderItem> retrievedItems = order.getItems();
-        retrievedItems.clear();
+        assertThrows(UnsupportedOperationException.class, retrievedItems::clear);
 
         assertEquals(1, order.getItems().size());
     }
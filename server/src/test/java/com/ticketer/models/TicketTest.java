@@ -59,7 +59,7 @@ public class TicketTest {
         ticket.addOrder(new Order());
 
         List<Order> retrievedOrders = ticket.getOrders();
-        retrievedOrders.clear();
+        assertThrows(UnsupportedOperationException.class, retrievedOrders::clear);
 
         assertEquals(1, ticket.getOrders().size());
     }
@@ -100,4 +100,66 @@ public class TicketTest {
 
         assertFalse(ticket.removeOrder(order));
     }
+
+    @Test
+    public void testApplyRecordsChangesAndReplaySkipsStaleRevisions() throws Exception {
+        Ticket ticket = new Ticket(1);
+        ticket.apply(TicketChange.orderAdded(new Order(0)));
+        ticket.apply(TicketChange.itemAdded(0, OrderItem.forItem(null, "A", null, null, 1000, 0)));
+        ticket.apply(TicketChange.itemComment(0, 0, "no onions"));
+
+        assertEquals(3, ticket.getRevision());
+        List<TicketChange> changes = ticket.drainChanges();
+        assertEquals(3, changes.size());
+        assertTrue(ticket.drainChanges().isEmpty());
+
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        changes = mapper.readValue(mapper.writeValueAsString(changes),
+                new com.fasterxml.jackson.core.type.TypeReference<List<TicketChange>>() {
+                });
+        Ticket replica = new Ticket(1);
+        for (TicketChange change : changes) {
+            assertTrue(replica.replay(change));
+        }
+        assertFalse(replica.replay(changes.get(1)));
+        assertEquals(1, replica.getOrders().get(0).getItems().size());
+        assertEquals("no onions", replica.getOrders().get(0).getItems().get(0).getComment());
+        assertEquals(1000, replica.getSubtotal());
+    }
+
+    @Test
+    public void testApplyLeavesEarlierOrderListsUntouched() {
+        Ticket ticket = new Ticket(1);
+        ticket.apply(TicketChange.orderAdded(new Order(0)));
+        ticket.apply(TicketChange.itemAdded(0, OrderItem.forItem(null, "A", null, null, 1000, 0)));
+        List<Order> before = ticket.getOrders();
+        Order order = before.get(0);
+        OrderItem item = order.getItems().get(0);
+
+        ticket.apply(TicketChange.priceChanged(0, 0, 500));
+        ticket.apply(TicketChange.itemComment(0, 0, "no onions"));
+        ticket.apply(TicketChange.itemMoved(0, 0, 0));
+
+        assertSame(order, before.get(0));
+        assertEquals(1000, item.getPrice());
+        assertNull(item.getComment());
+        assertEquals(1000, order.getSubtotal());
+        assertEquals(1, ticket.getOrders().get(0).getItems().size());
+        assertEquals(500, ticket.getOrders().get(0).getItems().get(0).getPrice());
+        assertEquals("no onions", ticket.getOrders().get(0).getItems().get(0).getComment());
+    }
+
+    @Test
+    public void testStatusKeepsStringJsonFormat() throws Exception {
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        mapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        Ticket ticket = new Ticket(1);
+        ticket.setStatus(TicketStatus.COMPLETED);
+
+        String json = mapper.writeValueAsString(ticket);
+        assertTrue(json.contains("\"status\":\"COMPLETED\""));
+        assertEquals(TicketStatus.COMPLETED, mapper.readValue(json, Ticket.class).getStatus());
+        assertEquals(TicketStatus.CLOSED,
+                mapper.readValue(json.replace("\"COMPLETED\"", "\"closed\""), Ticket.class).getStatus());
+    }
 }
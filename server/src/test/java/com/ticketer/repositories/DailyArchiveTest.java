@@ -0,0 +1,174 @@
+package com.ticketer.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ticketer.models.Order;
+import com.ticketer.models.OrderItem;
+import com.ticketer.models.Ticket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DailyArchiveTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path tempDir;
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private Ticket ticket(int id, String item, long price) {
+        Ticket ticket = new Ticket(id);
+        Order order = new Order(0);
+        order.addItem(OrderItem.forItem(null, item, null, null, price, 0));
+        ticket.addOrder(order);
+        return ticket;
+    }
+
+    @Test
+    public void testSegmentedLayoutAppendsSegmentsAndKeepsRunningTotals() throws Exception {
+        DailyArchive archive = new DailyArchive(tempDir.toString(), "segmented", mapper);
+
+        archive.append(DATE, List.of(ticket(1, "Burger", 1000), ticket(2, "Fries", 500)));
+        archive.append(DATE, List.of());
+        archive.append(DATE, List.of(ticket(3, "Burger", 1000)));
+
+        Path day = tempDir.resolve(DATE.toString());
+        assertTrue(Files.exists(day.resolve("segment-00001.json")));
+        assertTrue(Files.exists(day.resolve("segment-00002.json")));
+        assertFalse(Files.exists(day.resolve("segment-00003.json")));
+        assertFalse(Files.exists(tempDir.resolve(DATE + ".json")));
+
+        JsonNode manifest = mapper.readTree(day.resolve("manifest.json").toFile());
+        assertEquals(2, manifest.get("segments").asInt());
+
+        List<Ticket> tickets = archive.readTickets(DATE);
+        assertEquals(List.of(1, 2, 3), tickets.stream().map(Ticket::getId).toList());
+    }
+
+    @Test
+    public void testSegmentsAreListedWhenManifestIsUnreadableOrBehind() throws Exception {
+        DailyArchive archive = new DailyArchive(tempDir.toString(), "segmented", mapper);
+        archive.append(DATE, List.of(ticket(1, "Burger", 1000)));
+        archive.append(DATE, List.of(ticket(2, "Fries", 500)));
+        Path day = tempDir.resolve(DATE.toString());
+
+        Files.writeString(day.resolve("manifest.json"), "{\"segments\": 1}");
+        assertEquals(List.of(1, 2), archive.readTickets(DATE).stream().map(Ticket::getId).toList());
+
+        Files.writeString(day.resolve("manifest.json"), "{\"segm");
+        assertEquals(List.of(1, 2), archive.readTickets(DATE).stream().map(Ticket::getId).toList());
+        archive.append(DATE, List.of(ticket(3, "Burger", 1000)));
+        assertTrue(Files.exists(day.resolve("segment-00003.json")));
+        assertEquals(3, mapper.readTree(day.resolve("manifest.json").toFile()).get("segments").asInt());
+        assertEquals(List.of(1, 2, 3), archive.readTickets(DATE).stream().map(Ticket::getId).toList());
+    }
+
+    @Test
+    public void testLegacyLayoutMergesIntoDailyFile() throws Exception {
+        DailyArchive archive = new DailyArchive(tempDir.toString(), "legacy", mapper);
+
+        archive.append(DATE, List.of(ticket(1, "Burger", 1000)));
+        archive.append(DATE, List.of(ticket(2, "Fries", 500)));
+
+        JsonNode log = mapper.readTree(tempDir.resolve(DATE + ".json").toFile());
+        assertEquals(2, log.get("ticketCount").asInt());
+        assertEquals(1500, log.get("subtotal").asLong());
+        assertEquals(2, archive.readTickets(DATE).size());
+    }
+
+    @Test
+    public void testLegacyMergeRefusesToOverwriteUnreadableFile() throws Exception {
+        Path file = tempDir.resolve(DATE + ".json");
+        Files.writeString(file, "{\"tickets\": [");
+        DailyArchive archive = new DailyArchive(tempDir.toString(), "legacy", mapper);
+
+        assertThrows(java.io.IOException.class, () -> archive.append(DATE, List.of(ticket(1, "Burger", 1000))));
+        assertEquals("{\"tickets\": [", Files.readString(file));
+    }
+
+    @Test
+    public void testReadsLegacyFileAlongsideSegments() throws Exception {
+        new DailyArchive(tempDir.toString(), "legacy", mapper).append(DATE, List.of(ticket(1, "Burger", 1000)));
+        DailyArchive archive = new DailyArchive(tempDir.toString(), "segmented", mapper);
+        archive.append(DATE, List.of(ticket(2, "Fries", 500)));
+
+        assertEquals(List.of(1, 2), archive.readTickets(DATE).stream().map(Ticket::getId).toList());
+        assertTrue(archive.readTickets(DATE.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    public void testReArchivedCopiesCollapseButRestartedIdsAreKept() throws Exception {
+        Instant morning = Instant.parse("2024-03-01T09:00:00Z");
+        Ticket first = ticket(1, "Burger", 1000);
+        first.setCreatedAt(morning);
+        Ticket restarted = ticket(1, "Fries", 500);
+        restarted.setCreatedAt(morning.plusSeconds(3600));
+        Ticket edited = ticket(1, "Burger", 1000);
+        edited.setCreatedAt(morning);
+        edited.setComment("refund");
+
+        new DailyArchive(tempDir.toString(), "legacy", mapper).append(DATE, List.of(first));
+        DailyArchive archive = new DailyArchive(tempDir.toString(), "segmented", mapper);
+        archive.append(DATE, List.of(restarted));
+        archive.append(DATE, List.of(edited));
+
+        List<Ticket> tickets = archive.readTickets(DATE);
+        assertEquals(2, tickets.size());
+        assertEquals(morning.plusSeconds(3600), tickets.get(0).getCreatedAt());
+        assertEquals("refund", tickets.get(1).getComment());
+        assertEquals("refund", archive.findTicket(DATE, 1, morning).orElseThrow().getComment());
+        assertEquals("refund", archive.findTicket(DATE, 1).orElseThrow().getComment());
+
+        DailyArchive legacy = new DailyArchive(tempDir.resolve("legacy").toString(), "legacy", mapper);
+        legacy.append(DATE, List.of(first, restarted));
+        legacy.append(DATE, List.of(edited));
+        assertEquals(2, legacy.readTickets(DATE).size());
+        assertEquals("refund", legacy.findTicket(DATE, 1, morning).orElseThrow().getComment());
+    }
+
+    @Test
+    public void testGzipCompressionIsReadableAlongsideUncompressedFiles() throws Exception {
+        new DailyArchive(tempDir.toString(), "legacy", "none", mapper).append(DATE, List.of(ticket(1, "Burger", 1000)));
+        DailyArchive legacy = new DailyArchive(tempDir.toString(), "legacy", "gzip", mapper);
+        legacy.append(DATE, List.of(ticket(2, "Fries", 500)));
+
+        byte[] bytes = Files.readAllBytes(tempDir.resolve(DATE + ".json"));
+        assertEquals((byte) 0x1f, bytes[0]);
+        assertEquals((byte) 0x8b, bytes[1]);
+        assertEquals(List.of(1, 2), legacy.readTickets(DATE).stream().map(Ticket::getId).toList());
+
+        DailyArchive segmented = new DailyArchive(tempDir.toString(), "segmented", "gzip", mapper);
+        segmented.append(DATE, List.of(ticket(3, "Burger", 1000)));
+        byte[] segment = Files.readAllBytes(tempDir.resolve(DATE.toString()).resolve("segment-00001.json"));
+        assertEquals((byte) 0x1f, segment[0]);
+        assertEquals('{', Files.readString(tempDir.resolve(DATE.toString()).resolve("manifest.json")).charAt(0));
+
+        DailyArchive uncompressed = new DailyArchive(tempDir.toString(), "segmented", "none", mapper);
+        assertEquals(List.of(1, 2, 3), uncompressed.readTickets(DATE).stream().map(Ticket::getId).toList());
+    }
+
+    @Test
+    public void testRejectsUnknownCompression() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DailyArchive(tempDir.toString(), "legacy", "zstd", mapper));
+    }
+}
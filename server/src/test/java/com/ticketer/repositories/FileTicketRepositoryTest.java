@@ -1,6 +1,7 @@
 package com.ticketer.repositories;
 
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketStatus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,16 +44,7 @@ public class FileTicketRepositoryTest {
     @AfterEach
     public void tearDown() {
         repository.deleteAll();
-        File testDir = new File(TEST_TICKETS_DIR);
-        if (testDir.exists()) {
-            File[] files = testDir.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    f.delete();
-                }
-            }
-            testDir.delete();
-        }
+        org.springframework.util.FileSystemUtils.deleteRecursively(new File(TEST_TICKETS_DIR));
         System.clearProperty("tickets.dir");
         System.clearProperty("recovery.file");
     }
@@ -211,4 +203,545 @@ public class FileTicketRepositoryTest {
         assertFalse(recoveryFile.exists(), "Recovery file should be deleted");
         assertTrue(repository.findAllActive().isEmpty());
     }
+
+    @Test
+    public void testBucketsKeepInsertionOrderAcrossMoves() {
+        for (int id = 1; id <= 5; id++) {
+            repository.save(new Ticket(id));
+        }
+        repository.moveToCompleted(2);
+        repository.moveToCompleted(4);
+        repository.moveToClosed(4);
+        repository.moveToActive(2);
+
+        assertEquals(java.util.List.of(1, 3, 5, 2),
+                repository.findAllActive().stream().map(Ticket::getId).toList());
+        assertTrue(repository.findAllCompleted().isEmpty());
+        assertEquals(java.util.List.of(4),
+                repository.findAllClosed().stream().map(Ticket::getId).toList());
+        assertEquals(4, repository.findById(4).get().getId());
+    }
+
+    @Test
+    public void testTransitionTableGovernsMoves() {
+        repository.save(new Ticket(1));
+        repository.moveToCompleted(1);
+        assertEquals(TicketStatus.COMPLETED, repository.findById(1).get().getStatus());
+        repository.moveToActive(1);
+        assertEquals(TicketStatus.ACTIVE, repository.findById(1).get().getStatus());
+        repository.moveToClosed(1);
+        assertEquals(TicketStatus.CLOSED, repository.findById(1).get().getStatus());
+
+        assertThrows(com.ticketer.exceptions.ActionNotAllowedException.class, () -> repository.moveToActive(1));
+        assertThrows(com.ticketer.exceptions.ActionNotAllowedException.class, () -> repository.moveToCompleted(1));
+        assertEquals(java.util.List.of(1), repository.findAllClosed().stream().map(Ticket::getId).toList());
+
+        FileTicketRepository newRepo = new FileTicketRepository(mapper);
+        assertEquals(TicketStatus.CLOSED, newRepo.findById(1).get().getStatus());
+    }
+
+    @Test
+    public void testChangesSinceReturnsDeltasAndTombstones() {
+        repository.save(new Ticket(1));
+        repository.save(new Ticket(2));
+        repository.save(new Ticket(3));
+        com.ticketer.models.TicketChangeSet initial = repository.changesSince(0);
+        assertTrue(initial.reset());
+        assertEquals(3, initial.tickets().size());
+
+        long seq = initial.seq();
+        assertEquals(seq, repository.changesSince(seq).seq());
+        assertTrue(repository.changesSince(seq).tickets().isEmpty());
+
+        repository.moveToCompleted(2);
+        Ticket edited = repository.findById(1).get();
+        edited.setComment("window");
+        repository.save(edited);
+        repository.deleteById(3);
+
+        com.ticketer.models.TicketChangeSet delta = repository.changesSince(seq);
+        assertFalse(delta.reset());
+        assertEquals(seq + 3, delta.seq());
+        assertEquals(java.util.List.of(2, 1), delta.tickets().stream().map(Ticket::getId).toList());
+        assertEquals(java.util.List.of(3), delta.removed());
+        assertTrue(repository.changesSince(delta.seq()).tickets().isEmpty());
+        assertTrue(repository.changesSince(delta.seq()).removed().isEmpty());
+
+        assertTrue(repository.changesSince(delta.seq() + 10).reset());
+
+        FileTicketRepository newRepo = new FileTicketRepository(mapper);
+        com.ticketer.models.TicketChangeSet afterRestart = newRepo.changesSince(seq);
+        assertTrue(afterRestart.reset());
+        assertEquals(delta.seq(), afterRestart.seq());
+        assertEquals(2, afterRestart.tickets().size());
+
+        repository.deleteAll();
+        assertTrue(repository.changesSince(delta.seq()).reset());
+    }
+
+    @Test
+    public void testRecoveryUpdatesClosedTicketInPlace() {
+        Ticket t = new Ticket(7);
+        repository.save(t);
+        repository.moveToClosed(7);
+        t.setComment("edited");
+        repository.save(t);
+
+        FileTicketRepository newRepo = new FileTicketRepository(mapper);
+        assertTrue(newRepo.findAllActive().isEmpty());
+        assertEquals(1, newRepo.findAllClosed().size());
+        assertEquals("edited", newRepo.findById(7).get().getComment());
+    }
+
+    @Test
+    public void testCompactionSnapshotsStateAndTruncatesJournal() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, 10, Long.MAX_VALUE);
+        FileTicketRepository compacting = new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper,
+                java.time.Clock.systemUTC());
+
+        for (int i = 1; i <= 12; i++) {
+            Ticket t = new Ticket(i);
+            t.setTableNumber("T" + i);
+            compacting.save(t);
+        }
+        compacting.moveToCompleted(2);
+        compacting.moveToClosed(3);
+
+        File snapshot = new File(recoveryFile + ".snapshot");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!snapshot.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(snapshot.exists());
+        compacting.compact();
+        assertEquals(0, new File(recoveryFile).length());
+
+        Ticket edited = compacting.findById(5).get();
+        edited.setComment("after snapshot");
+        compacting.save(edited);
+        compacting.close();
+
+        FileTicketRepository restarted = new FileTicketRepository(mapper);
+        assertEquals(10, restarted.findAllActive().size());
+        assertEquals(java.util.List.of(2),
+                restarted.findAllCompleted().stream().map(Ticket::getId).toList());
+        assertEquals(java.util.List.of(3),
+                restarted.findAllClosed().stream().map(Ticket::getId).toList());
+        assertEquals("after snapshot", restarted.findById(5).get().getComment());
+        assertEquals("T12", restarted.findById(12).get().getTableNumber());
+    }
+
+    @Test
+    public void testDeleteAllRemovesSnapshot() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository compacting = new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper,
+                java.time.Clock.systemUTC());
+        compacting.save(new Ticket(1));
+        compacting.compact();
+        assertTrue(new File(recoveryFile + ".snapshot").exists());
+
+        compacting.deleteAll();
+        assertFalse(new File(recoveryFile + ".snapshot").exists());
+        assertTrue(new FileTicketRepository(mapper).findAllActive().isEmpty());
+    }
+
+    @Test
+    public void testChangesAreJournaledAsDeltas() throws IOException {
+        Ticket t = new Ticket(8);
+        t.setTableNumber("T8");
+        repository.save(t);
+        t.apply(com.ticketer.models.TicketChange.orderAdded(new com.ticketer.models.Order(0)));
+        repository.save(t);
+        t.apply(com.ticketer.models.TicketChange.itemAdded(0,
+                com.ticketer.models.OrderItem.forItem(null, "Burger", null, null, 1500, 0)));
+        repository.save(t);
+        t.apply(com.ticketer.models.TicketChange.itemComment(0, 0, "no pickles"));
+        repository.save(t);
+
+        java.util.List<String> lines = Files.readAllLines(new File(TEST_TICKETS_DIR + "/recovery.json").toPath());
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(3).contains("\"ITEM_COMMENT\""));
+        assertFalse(lines.get(3).contains("Burger"));
+
+        FileTicketRepository newRepo = new FileTicketRepository(mapper);
+        Ticket recovered = newRepo.findById(8).get();
+        assertEquals(3, recovered.getRevision());
+        assertEquals("no pickles", recovered.getOrders().get(0).getItems().get(0).getComment());
+        assertEquals(1500, recovered.getSubtotal());
+    }
+
+    @Test
+    public void testMoveCarriesStatusChangeInOneRecord() throws IOException {
+        Ticket t = new Ticket(9);
+        repository.save(t);
+        t.apply(com.ticketer.models.TicketChange.statusChanged(TicketStatus.COMPLETED));
+        repository.moveToCompleted(9);
+
+        java.util.List<String> lines = Files.readAllLines(new File(TEST_TICKETS_DIR + "/recovery.json").toPath());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"MOVE_COMPLETED\""));
+        assertTrue(lines.get(1).contains("\"STATUS_CHANGED\""));
+
+        Ticket recovered = new FileTicketRepository(mapper).findById(9).get();
+        assertEquals(TicketStatus.COMPLETED, recovered.getStatus());
+        assertEquals(1, recovered.getRevision());
+    }
+
+    @Test
+    public void testDeltaAlreadyInSnapshotIsNotReappliedOnRecovery() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository compacting = new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper,
+                java.time.Clock.systemUTC());
+        Ticket t = new Ticket(9);
+        t.apply(com.ticketer.models.TicketChange.orderAdded(new com.ticketer.models.Order(0)));
+        compacting.save(t);
+
+        t.apply(com.ticketer.models.TicketChange.itemAdded(0,
+                com.ticketer.models.OrderItem.forItem(null, "Fries", null, null, 500, 0)));
+        compacting.compact();
+        compacting.save(t);
+        compacting.close();
+
+        FileTicketRepository newRepo = new FileTicketRepository(mapper);
+        assertEquals(1, newRepo.findById(9).get().getOrders().get(0).getItems().size());
+    }
+
+    @Test
+    public void testBinaryFormatRecoversAndTruncatesTornTail() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        FileTicketRepository binary = binaryRepository(recoveryFile);
+        Ticket t = new Ticket(11);
+        t.setTableNumber("T11");
+        binary.save(t);
+        t.apply(com.ticketer.models.TicketChange.ticketComment("window seat"));
+        binary.save(t);
+        binary.moveToCompleted(11);
+        binary.close();
+
+        File file = new File(recoveryFile);
+        long validLength = file.length();
+        byte[] head = new byte[4];
+        try (java.io.FileInputStream in = new java.io.FileInputStream(file)) {
+            assertEquals(4, in.read(head));
+        }
+        assertArrayEquals(new byte[] { 'T', 'K', 'J', 1 }, head);
+        try (java.io.FileOutputStream out = new java.io.FileOutputStream(file, true)) {
+            out.write(new byte[] { 0, 0, 0, 42, 1, 2, 3, 4, 5 });
+        }
+
+        FileTicketRepository recovered = binaryRepository(recoveryFile);
+        assertEquals(validLength, file.length());
+        assertEquals("window seat", recovered.findById(11).get().getComment());
+        assertEquals(java.util.List.of(11), recovered.findAllCompleted().stream().map(Ticket::getId).toList());
+
+        recovered.moveToActive(11);
+        recovered.close();
+        assertEquals(1, binaryRepository(recoveryFile).findAllActive().size());
+    }
+
+    @Test
+    public void testJsonJournalIsMigratedToBinary() throws Exception {
+        Ticket t = new Ticket(12);
+        t.setTableNumber("T12");
+        repository.save(t);
+        repository.moveToClosed(12);
+
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        FileTicketRepository binary = binaryRepository(recoveryFile);
+        assertFalse(new File(recoveryFile).exists());
+        assertTrue(new File(recoveryFile + ".snapshot").exists());
+        assertEquals("T12", binary.findById(12).get().getTableNumber());
+
+        binary.save(new Ticket(13));
+        binary.close();
+
+        FileTicketRepository reopened = binaryRepository(recoveryFile);
+        assertEquals(java.util.List.of(12), reopened.findAllClosed().stream().map(Ticket::getId).toList());
+        assertEquals(java.util.List.of(13), reopened.findAllActive().stream().map(Ticket::getId).toList());
+    }
+
+    @Test
+    public void testSpilledClosedTicketsKeepOnlySummariesInMemory() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository spilling = spillingRepository(recoveryFile, options);
+        for (int i = 1; i <= 3; i++) {
+            Ticket t = new Ticket(i);
+            t.setTableNumber("T" + i);
+            spilling.save(t);
+        }
+        spilling.addTicketToKitchen(3);
+        spilling.moveToClosed(1);
+        spilling.moveToClosed(3);
+        spilling.spillClosedTickets();
+
+        assertEquals(java.util.List.of(3), spilling.findUnarchivedClosed().stream().map(Ticket::getId).toList());
+        assertEquals(java.util.List.of(1, 3),
+                spilling.findClosedSummaries().stream().map(com.ticketer.models.TicketSummary::getId).toList());
+        Ticket archived = spilling.findById(1).orElseThrow();
+        assertEquals("T1", archived.getTableNumber());
+        assertEquals(TicketStatus.CLOSED, archived.getStatus());
+        assertNotNull(archived.getClosedAt());
+        archived.apply(com.ticketer.models.TicketChange.ticketComment("refund"));
+        spilling.save(archived);
+        assertEquals("refund", spilling.findById(1).orElseThrow().getComment());
+
+        spilling.removeTicketFromKitchen(3);
+        spilling.spillClosedTickets();
+        assertTrue(spilling.findUnarchivedClosed().isEmpty());
+        spilling.close();
+
+        FileTicketRepository replayed = spillingRepository(recoveryFile, options);
+        replayed.spillClosedTickets();
+        assertEquals(java.util.List.of(1, 3), replayed.findAllClosed().stream().map(Ticket::getId).sorted().toList());
+        assertEquals(java.util.List.of(2), replayed.findAllActive().stream().map(Ticket::getId).toList());
+        replayed.compact();
+        replayed.close();
+
+        FileTicketRepository fromSnapshot = spillingRepository(recoveryFile, options);
+        assertEquals(2, fromSnapshot.findClosedSummaries().size());
+        assertEquals("T3", fromSnapshot.findById(3).orElseThrow().getTableNumber());
+        assertEquals("refund", fromSnapshot.findById(1).orElseThrow().getComment());
+        assertEquals(2, new DailyArchive(TEST_TICKETS_DIR, "segmented", mapper)
+                .readTickets(java.time.LocalDate.now()).size());
+        fromSnapshot.close();
+    }
+
+    @Test
+    public void testRunningAggregatesMatchFullRecompute() {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository aggregating = spillingRepository(recoveryFile, options);
+        java.util.Random random = new java.util.Random(42);
+        int nextId = 1;
+        for (int step = 0; step < 400; step++) {
+            java.util.List<Ticket> open = new java.util.ArrayList<>(aggregating.findAllActive());
+            open.addAll(aggregating.findAllCompleted());
+            int roll = random.nextInt(10);
+            if (open.isEmpty() || roll < 2) {
+                Ticket t = new Ticket(nextId++);
+                t.addOrder(new com.ticketer.models.Order(random.nextInt(1500)));
+                aggregating.save(t);
+            } else {
+                Ticket t = open.get(random.nextInt(open.size()));
+                if (roll < 6) {
+                    t.apply(com.ticketer.models.TicketChange.itemAdded(0,
+                            com.ticketer.models.OrderItem.forItem(null, "Dish", null, null, 100 + random.nextInt(2000), 0)));
+                    aggregating.save(t);
+                } else if (roll < 7 && !t.getOrders().get(0).getItems().isEmpty()) {
+                    t.apply(com.ticketer.models.TicketChange.itemRemoved(0, 0));
+                    aggregating.save(t);
+                } else if (roll < 8) {
+                    aggregating.moveToCompleted(t.getId());
+                } else if (roll < 9) {
+                    aggregating.moveToClosed(t.getId());
+                } else if (random.nextBoolean()) {
+                    aggregating.deleteById(t.getId());
+                } else {
+                    aggregating.spillClosedTickets();
+                }
+            }
+            aggregating.verifyAggregates();
+        }
+        long closedTotal = aggregating.closedTotal();
+        long openTotal = aggregating.activeAndCompletedTotal();
+        assertTrue(closedTotal > 0);
+        assertEquals(closedTotal, aggregating.findClosedSummaries().stream()
+                .mapToLong(com.ticketer.models.TicketSummary::getTotal).sum());
+        aggregating.close();
+
+        FileTicketRepository replayed = spillingRepository(recoveryFile, options);
+        replayed.verifyAggregates();
+        assertEquals(closedTotal, replayed.closedTotal());
+        assertEquals(openTotal, replayed.activeAndCompletedTotal());
+        replayed.persistClosedTickets();
+        replayed.verifyAggregates();
+        assertEquals(0, replayed.closedSubtotal());
+        replayed.close();
+    }
+
+    @Test
+    public void testTicketSequenceSurvivesRestartAndCompaction() {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository sequenced = spillingRepository(recoveryFile, options);
+        for (int i = 1; i <= 3; i++) {
+            sequenced.save(new Ticket(i));
+        }
+        sequenced.deleteById(3);
+        assertEquals(3, sequenced.lastTicketId());
+        sequenced.close();
+
+        FileTicketRepository replayed = spillingRepository(recoveryFile, options);
+        assertEquals(3, replayed.lastTicketId());
+        assertTrue(replayed.lastTicketCreatedAt().isPresent());
+        replayed.compact();
+        replayed.close();
+
+        FileTicketRepository fromSnapshot = spillingRepository(recoveryFile, options);
+        assertEquals(3, fromSnapshot.lastTicketId());
+        assertTrue(fromSnapshot.lastTicketCreatedAt().isPresent());
+        fromSnapshot.deleteRecoveryFile();
+        fromSnapshot.close();
+
+        FileTicketRepository afterDelete = spillingRepository(recoveryFile, options);
+        assertEquals(3, afterDelete.lastTicketId());
+        assertTrue(afterDelete.lastTicketCreatedAt().isPresent());
+        assertTrue(afterDelete.findAllActive().isEmpty());
+        afterDelete.close();
+    }
+
+    @Test
+    public void testRollOverHandsOffClosedTicketsAndSurvivesFailedArchive() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        java.time.LocalDate yesterday = java.time.LocalDate.now().minusDays(1);
+        DailyArchive failing = new DailyArchive(TEST_TICKETS_DIR, "segmented", "none", mapper) {
+            @Override
+            public void append(java.time.LocalDate date, java.util.List<Ticket> tickets) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        FileTicketRepository rolling = new FileTicketRepository(recoveryFile, false, options, failing, mapper,
+                java.time.Clock.systemUTC());
+        for (int i = 1; i <= 3; i++) {
+            Ticket t = new Ticket(i);
+            t.setTableNumber("T" + i);
+            rolling.save(t);
+        }
+        rolling.moveToClosed(1);
+        rolling.moveToClosed(2);
+        rolling.rollOver(yesterday).get(10, TimeUnit.SECONDS);
+
+        assertTrue(rolling.findAllActive().isEmpty());
+        assertTrue(rolling.findAllClosed().isEmpty());
+        assertEquals(0, rolling.lastTicketId());
+        rolling.save(new Ticket(1));
+        rolling.close();
+
+        FileTicketRepository recovered = spillingRepository(recoveryFile, options);
+        recovered.archiveHandoffs();
+        assertEquals(java.util.List.of(1, 2), new DailyArchive(TEST_TICKETS_DIR, "segmented", mapper)
+                .readTickets(yesterday).stream().map(Ticket::getId).sorted().toList());
+        assertEquals(java.util.List.of(1), recovered.findAllActive().stream().map(Ticket::getId).toList());
+        assertEquals(1, recovered.lastTicketId());
+        recovered.compact();
+        recovered.close();
+
+        FileTicketRepository fromSnapshot = spillingRepository(recoveryFile, options);
+        fromSnapshot.archiveHandoffs();
+        assertEquals(2, new DailyArchive(TEST_TICKETS_DIR, "segmented", mapper).readTickets(yesterday).size());
+        fromSnapshot.close();
+    }
+
+    @Test
+    public void testOpenTicketsAreIndexedByTable() {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository indexed = spillingRepository(recoveryFile, options);
+        String[] tables = {"12", "Patio 3", "12", "Bar"};
+        for (int i = 1; i <= tables.length; i++) {
+            Ticket t = new Ticket(i);
+            t.setTableNumber(tables[i - 1]);
+            indexed.save(t);
+        }
+        assertEquals(java.util.List.of(1, 3), indexed.findOpenByTable("12").stream().map(Ticket::getId).toList());
+        assertEquals(java.util.List.of(2), indexed.findOpenByTable(" patio 3 ").stream().map(Ticket::getId).toList());
+
+        indexed.moveToCompleted(1);
+        indexed.moveToClosed(3);
+        assertEquals(java.util.List.of(1), indexed.findOpenByTable("12").stream().map(Ticket::getId).toList());
+
+        Ticket moved = indexed.findById(4).orElseThrow();
+        moved.setTableNumber("12");
+        indexed.save(moved);
+        indexed.deleteById(2);
+        assertEquals(java.util.List.of(1, 4), indexed.findOpenByTable("12").stream().map(Ticket::getId).toList());
+        assertTrue(indexed.findOpenByTable("Bar").isEmpty());
+        assertTrue(indexed.findOpenByTable("Patio 3").isEmpty());
+        indexed.verifyAggregates();
+        indexed.close();
+
+        FileTicketRepository replayed = spillingRepository(recoveryFile, options);
+        assertEquals(java.util.List.of(1, 4), replayed.findOpenByTable("12").stream().map(Ticket::getId).toList());
+        replayed.verifyAggregates();
+        replayed.close();
+    }
+
+    @Test
+    public void testSpillRequiresSegmentedArchive() {
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        DailyArchive legacy = new DailyArchive(TEST_TICKETS_DIR, "legacy", "none", mapper);
+        assertThrows(IllegalArgumentException.class, () -> new FileTicketRepository(TEST_TICKETS_DIR + "/recovery.json", true, options,
+                legacy, mapper, java.time.Clock.systemUTC()));
+    }
+
+    private FileTicketRepository spillingRepository(String recoveryFile, RecoveryOptions options) {
+        DailyArchive archive = new DailyArchive(TEST_TICKETS_DIR, "segmented", "none", mapper);
+        return new FileTicketRepository(recoveryFile, true, options, archive, mapper, java.time.Clock.systemUTC());
+    }
+
+    private FileTicketRepository binaryRepository(String recoveryFile) {
+        RecoveryOptions options = new RecoveryOptions("buffered", "binary", "file", 0, 1000, Integer.MAX_VALUE, Long.MAX_VALUE);
+        return new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper, java.time.Clock.systemUTC());
+    }
+
+    @Test
+    public void testMappedStorageRecoversAndRecyclesSegmentsOnDelete() throws Exception {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        RecoveryOptions options = new RecoveryOptions("buffered", "binary", "mapped", 4096, 1000,
+                Integer.MAX_VALUE, Long.MAX_VALUE);
+        FileTicketRepository mapped = new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper,
+                java.time.Clock.systemUTC());
+        for (int i = 1; i <= 50; i++) {
+            Ticket t = new Ticket(i);
+            t.setTableNumber("T" + i);
+            mapped.save(t);
+        }
+        mapped.moveToClosed(7);
+        mapped.close();
+        assertFalse(new File(recoveryFile).exists());
+
+        FileTicketRepository reopened = new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper,
+                java.time.Clock.systemUTC());
+        assertEquals(49, reopened.findAllActive().size());
+        assertEquals("T7", reopened.findAllClosed().get(0).getTableNumber());
+
+        File[] segments = new File(TEST_TICKETS_DIR).listFiles((dir, name) -> name.startsWith("recovery.json.seg-"));
+        assertTrue(segments.length > 1);
+        reopened.deleteRecoveryFile();
+        reopened.close();
+        assertEquals(segments.length,
+                new File(TEST_TICKETS_DIR).listFiles((dir, name) -> name.startsWith("recovery.json.seg-")).length);
+        assertTrue(new FileTicketRepository(TEST_TICKETS_DIR, recoveryFile, options, mapper,
+                java.time.Clock.systemUTC()).findAllActive().isEmpty());
+    }
+
+    @Test
+    public void testReplaySkipsSupersededFullStateRecords() throws IOException {
+        String recoveryFile = TEST_TICKETS_DIR + "/recovery.json";
+        String journal = String.join("\n",
+                "{\"seq\":1,\"type\":\"CREATE\",\"ticket\":{\"id\":1,\"tableNumber\":\"A\",\"orders\":\"broken\"},\"ticketId\":1}",
+                "{\"seq\":2,\"type\":\"CREATE\",\"ticket\":{\"id\":2,\"tableNumber\":\"B\",\"orders\":[]},\"ticketId\":2}",
+                "{\"seq\":3,\"type\":\"MOVE_COMPLETED\",\"ticketId\":1}",
+                "{\"seq\":4,\"type\":\"UPDATE\",\"ticket\":{\"id\":1,\"tableNumber\":\"A2\",\"orders\":\"broken\"},\"ticketId\":1}",
+                "{\"seq\":5,\"type\":\"CHANGE\",\"ticketId\":1,\"changes\":[{\"type\":\"TICKET_COMMENT\",\"text\":\"stale\",\"revision\":1}]}",
+                "{\"seq\":6,\"type\":\"UPDATE\",\"ticket\":{\"id\":1,\"tableNumber\":\"A3\",\"orders\":[],\"revision\":1},\"ticketId\":1}",
+                "{\"seq\":7,\"type\":\"CHANGE\",\"ticketId\":1,\"changes\":[{\"type\":\"TICKET_COMMENT\",\"text\":\"fresh\",\"revision\":2}]}",
+                "{\"seq\":8,\"type\":\"DELETE\",\"ticketId\":2}",
+                "");
+        Files.writeString(new File(recoveryFile).toPath(), journal);
+
+        FileTicketRepository recovered = new FileTicketRepository(mapper);
+        assertTrue(recovered.findAllActive().isEmpty());
+        assertEquals(1, recovered.findAllCompleted().size());
+        Ticket ticket = recovered.findById(1).get();
+        assertEquals("A3", ticket.getTableNumber());
+        assertEquals("fresh", ticket.getComment());
+        assertEquals(2, ticket.getRevision());
+        assertFalse(recovered.findById(2).isPresent());
+    }
 }
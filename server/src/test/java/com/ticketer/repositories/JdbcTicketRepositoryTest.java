@@ -0,0 +1,167 @@
+package com.ticketer.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ticketer.exceptions.ActionNotAllowedException;
+import com.ticketer.models.Order;
+import com.ticketer.models.OrderItem;
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChange;
+import com.ticketer.models.TicketStatus;
+import com.ticketer.models.TicketSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcTicketRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ObjectMapper mapper;
+    private DailyArchive archive;
+    private JdbcTicketRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        archive = new DailyArchive(tempDir.resolve("tickets").toString(), mapper);
+        repository = open();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        repository.close();
+    }
+
+    private JdbcTicketRepository open() {
+        return new JdbcTicketRepository("jdbc:h2:file:" + tempDir.resolve("tickets-db"), archive, mapper,
+                Clock.fixed(Instant.parse("2024-03-01T20:00:00Z"), ZoneOffset.UTC));
+    }
+
+    private static Ticket ticket(int id, String table, long price) {
+        Ticket ticket = new Ticket(id);
+        ticket.setTableNumber(table);
+        ticket.apply(TicketChange.orderAdded(new Order(1000)));
+        ticket.apply(TicketChange.itemAdded(0, OrderItem.forItem(null, "Burger", null, null, price, 0)));
+        return ticket;
+    }
+
+    @Test
+    public void testLifecycleAggregatesAndIndexesSurviveRestart() {
+        repository.save(ticket(1, "T1", 1000));
+        repository.save(ticket(2, " t1 ", 2000));
+        repository.save(ticket(3, "T2", 3000));
+        repository.moveToCompleted(2);
+        repository.moveToClosed(3);
+        repository.addTicketToKitchen(2);
+        repository.addTicketToKitchen(1);
+
+        Ticket edited = repository.findById(1).orElseThrow();
+        edited.apply(TicketChange.ticketComment("window seat"));
+        repository.save(edited);
+
+        assertThrows(ActionNotAllowedException.class, () -> repository.moveToActive(3));
+        repository.close();
+        repository = open();
+
+        assertEquals(List.of(1), repository.findAllActive().stream().map(Ticket::getId).toList());
+        assertEquals(List.of(2), repository.findAllCompleted().stream().map(Ticket::getId).toList());
+        Ticket closed = repository.findById(3).orElseThrow();
+        assertEquals(TicketStatus.CLOSED, closed.getStatus());
+        assertEquals(Instant.parse("2024-03-01T20:00:00Z"), closed.getClosedAt());
+        assertEquals("window seat", repository.findById(1).orElseThrow().getComment());
+        assertEquals(3, repository.findById(1).orElseThrow().getRevision());
+
+        assertEquals(3000, repository.closedSubtotal());
+        assertEquals(3300, repository.closedTotal());
+        assertEquals(3000, repository.activeAndCompletedSubtotal());
+        assertEquals(3300, repository.activeAndCompletedTotal());
+        List<TicketSummary> summaries = repository.findClosedSummaries();
+        assertEquals(1, summaries.size());
+        assertEquals("T2", summaries.get(0).getTableNumber());
+
+        assertEquals(List.of(1, 2), repository.findOpenByTable("T1").stream().map(Ticket::getId).toList());
+        assertEquals(List.of(2, 1), repository.findAllKitchen().stream().map(Ticket::getId).toList());
+        assertEquals(3, repository.lastTicketId());
+
+        repository.moveToActive(2);
+        assertEquals(List.of(1, 2), repository.findAllActive().stream().map(Ticket::getId).toList());
+        assertTrue(repository.deleteById(2));
+        assertEquals(List.of(1), repository.findAllKitchen().stream().map(Ticket::getId).toList());
+    }
+
+    @Test
+    public void testRollOverArchivesClosedTicketsAndResetsSequence() throws Exception {
+        repository.save(ticket(1, "T1", 1000));
+        repository.save(ticket(2, "T2", 2000));
+        repository.moveToClosed(2);
+
+        repository.rollOver(LocalDate.of(2024, 2, 29)).get();
+
+        assertEquals(List.of(2), archive.readTickets(LocalDate.of(2024, 2, 29)).stream().map(Ticket::getId).toList());
+        assertTrue(repository.findAllActive().isEmpty());
+        assertTrue(repository.findClosedSummaries().isEmpty());
+        assertEquals(0, repository.lastTicketId());
+        assertTrue(repository.lastTicketCreatedAt().isEmpty());
+    }
+
+    @Test
+    public void testMigratesFileRepositoryState() {
+        RecoveryOptions options = new RecoveryOptions("buffered", "json", "file", 0, 1000, Integer.MAX_VALUE,
+                Long.MAX_VALUE);
+        FileTicketRepository source = new FileTicketRepository(tempDir.resolve("tickets").toString(),
+                tempDir.resolve("recovery.json").toString(), options, mapper, Clock.systemUTC());
+        source.save(ticket(1, "T1", 1000));
+        source.save(ticket(2, "T2", 2000));
+        source.save(ticket(3, "T3", 3000));
+        source.moveToCompleted(2);
+        source.moveToClosed(3);
+        source.addTicketToKitchen(2);
+
+        assertEquals(3, TicketDatabaseMigration.migrate(source, repository));
+        source.close();
+
+        assertEquals(List.of(1), repository.findAllActive().stream().map(Ticket::getId).toList());
+        assertEquals(List.of(2), repository.findAllCompleted().stream().map(Ticket::getId).toList());
+        assertEquals(List.of(3), repository.findAllClosed().stream().map(Ticket::getId).toList());
+        assertEquals(List.of(2), repository.findAllKitchen().stream().map(Ticket::getId).toList());
+        assertEquals(3, repository.lastTicketId());
+        assertEquals(source.closedTotal(), repository.closedTotal());
+        assertThrows(IllegalStateException.class, () -> TicketDatabaseMigration.migrate(source, repository));
+    }
+
+    @Test
+    public void testReopenThenEditAdvancesRevisionPastTheTransition() {
+        com.ticketer.services.TicketService service = new com.ticketer.services.TicketService(repository,
+                Clock.fixed(Instant.parse("2024-03-01T20:00:00Z"), ZoneOffset.UTC));
+        try {
+            int id = service.createTicket("T1").getId();
+            service.addOrderToTicket(id, new Order(1000));
+            service.moveToCompleted(id);
+            long completed = repository.findById(id).orElseThrow().getRevision();
+
+            service.addItemToOrder(id, 0, OrderItem.forItem(null, "Burger", null, null, 1000, 0), null);
+
+            Ticket stored = repository.findById(id).orElseThrow();
+            assertEquals(TicketStatus.ACTIVE, stored.getStatus());
+            assertEquals(completed + 2, stored.getRevision());
+            assertEquals(1, stored.getOrders().get(0).getItems().size());
+        } finally {
+            service.close();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.ticketer.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecoveryJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConcurrentAppendsAreAllCommitted() throws Exception {
+        Path file = tempDir.resolve("recovery.json");
+        RecoveryJournal journal = new RecoveryJournal(file, RecoveryJournal.Durability.BATCH, 1000);
+
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    byte[] line = ("{\"t\":" + thread + ",\"i\":" + i + "}\n").getBytes(StandardCharsets.UTF_8);
+                    journal.append(line).get(10, TimeUnit.SECONDS);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        journal.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(threads * perThread, lines.size());
+        assertTrue(lines.contains("{\"t\":3,\"i\":199}"));
+    }
+
+    @Test
+    public void testDeleteDiscardsFileAndReopensOnNextAppend() throws Exception {
+        Path file = tempDir.resolve("recovery.json");
+        RecoveryJournal journal = new RecoveryJournal(file, RecoveryJournal.Durability.BUFFERED, 1000);
+
+        journal.append("first\n".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+        assertTrue(Files.exists(file));
+
+        journal.delete();
+        assertFalse(Files.exists(file));
+
+        journal.append("second\n".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("second"), Files.readAllLines(file));
+        journal.close();
+    }
+
+    @Test
+    public void testFailedWriteDoesNotAdvanceLength() throws Exception {
+        Path file = tempDir.resolve("recovery.json");
+        AtomicBoolean failing = new AtomicBoolean();
+        FileJournalStorage storage = new FileJournalStorage(file, new byte[0]) {
+            @Override
+            public void append(ByteBuffer[] records) throws IOException {
+                if (failing.get()) {
+                    throw new IOException("disk full");
+                }
+                super.append(records);
+            }
+        };
+        RecoveryJournal journal = new RecoveryJournal(storage, RecoveryJournal.Durability.BATCH, 1000);
+
+        journal.append("first\n".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+        failing.set(true);
+        CompletableFuture<Void> lost = journal.append("second\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(ExecutionException.class, () -> lost.get(5, TimeUnit.SECONDS));
+        assertEquals("first\n".length(), journal.length());
+
+        failing.set(false);
+        journal.append("third\n".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+        assertEquals(Files.size(file), journal.length());
+        journal.truncateHead("first\n".length());
+        assertEquals(List.of("third"), Files.readAllLines(file));
+        journal.close();
+    }
+
+    @Test
+    public void testFailedMappedWriteIsRolledBackBeforeCompaction() throws Exception {
+        Path base = tempDir.resolve("recovery.json");
+        AtomicBoolean failing = new AtomicBoolean();
+        MappedJournalStorage storage = new MappedJournalStorage(base, new byte[0], 2048) {
+            @Override
+            public void append(ByteBuffer[] records) throws IOException {
+                super.append(records);
+                if (failing.get()) {
+                    throw new IOException("disk full");
+                }
+            }
+        };
+        RecoveryJournal journal = new RecoveryJournal(storage, RecoveryJournal.Durability.BATCH, 1000);
+        for (int i = 0; i < 100; i++) {
+            journal.append(String.format("{\"i\":%03d}%n", i).getBytes(StandardCharsets.UTF_8))
+                    .get(5, TimeUnit.SECONDS);
+        }
+        long covered = journal.length();
+
+        failing.set(true);
+        CompletableFuture<Void> lost = journal.append(new byte[1500]);
+        assertThrows(ExecutionException.class, () -> lost.get(5, TimeUnit.SECONDS));
+        assertEquals(covered, journal.length());
+        assertEquals(covered, storage.size());
+
+        failing.set(false);
+        journal.append("{\"after\":1}\n".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+        List<String> lines = new String(journal.openStream().readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        assertEquals(101, lines.size());
+        assertEquals("{\"after\":1}", lines.get(100));
+        journal.truncateHead(covered);
+        assertEquals(journal.length(), storage.size());
+        assertTrue(new String(journal.openStream().readAllBytes(), StandardCharsets.UTF_8).endsWith("{\"after\":1}\n"));
+        journal.close();
+    }
+
+    @Test
+    public void testAppendAfterCloseFails() {
+        RecoveryJournal journal = new RecoveryJournal(tempDir.resolve("recovery.json"),
+                RecoveryJournal.Durability.INTERVAL, 50);
+        journal.close();
+
+        CompletableFuture<Void> commit = journal.append("late\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(commit.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testParseDurability() {
+        assertEquals(RecoveryJournal.Durability.BUFFERED, RecoveryJournal.Durability.parse(null));
+        assertEquals(RecoveryJournal.Durability.BATCH, RecoveryJournal.Durability.parse("batch"));
+        assertEquals(RecoveryJournal.Durability.INTERVAL, RecoveryJournal.Durability.parse(" Interval "));
+        assertThrows(IllegalArgumentException.class, () -> RecoveryJournal.Durability.parse("sometimes"));
+    }
+
+    @Test
+    public void testMappedSegmentsRollOverAndAreRecycled() throws Exception {
+        Path base = tempDir.resolve("recovery.json");
+        MappedJournalStorage storage = new MappedJournalStorage(base, new byte[0], 2048);
+        RecoveryJournal journal = new RecoveryJournal(storage, RecoveryJournal.Durability.BATCH, 1000);
+
+        for (int i = 0; i < 300; i++) {
+            journal.append(String.format("{\"i\":%03d}%n", i).getBytes(StandardCharsets.UTF_8))
+                    .get(5, TimeUnit.SECONDS);
+        }
+        long segments;
+        try (var files = Files.list(tempDir)) {
+            segments = files.filter(p -> p.getFileName().toString().startsWith("recovery.json.seg-")).count();
+        }
+        assertTrue(segments > 1);
+        journal.close();
+
+        MappedJournalStorage reopened = new MappedJournalStorage(base, new byte[0], 2048);
+        List<String> lines = new String(reopened.openStream().readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        assertEquals(300, lines.size());
+        assertEquals("{\"i\":299}", lines.get(299));
+
+        RecoveryJournal recycled = new RecoveryJournal(reopened, RecoveryJournal.Durability.BATCH, 1000);
+        recycled.delete();
+        assertFalse(recycled.exists());
+        recycled.append("{\"after\":1}\n".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+        long segmentsAfter;
+        try (var files = Files.list(tempDir)) {
+            segmentsAfter = files.filter(p -> p.getFileName().toString().startsWith("recovery.json.seg-")).count();
+        }
+        assertEquals(segments, segmentsAfter);
+        assertEquals("{\"after\":1}\n", new String(recycled.openStream().readAllBytes(), StandardCharsets.UTF_8));
+        recycled.close();
+    }
+
+    @Test
+    public void testMappedTruncateHeadDropsWholeSegments() throws Exception {
+        Path base = tempDir.resolve("recovery.json");
+        MappedJournalStorage storage = new MappedJournalStorage(base, new byte[0], 2048);
+        RecoveryJournal journal = new RecoveryJournal(storage, RecoveryJournal.Durability.BUFFERED, 1000);
+        for (int i = 0; i < 300; i++) {
+            journal.append(String.format("{\"i\":%03d}%n", i).getBytes(StandardCharsets.UTF_8))
+                    .get(5, TimeUnit.SECONDS);
+        }
+        long cut = journal.length() - 10;
+        journal.truncateHead(cut);
+
+        String remaining = new String(journal.openStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(remaining.length(), journal.length());
+        assertTrue(remaining.endsWith("{\"i\":299}\n"));
+        assertTrue(remaining.length() < 2048);
+        journal.close();
+    }
+}
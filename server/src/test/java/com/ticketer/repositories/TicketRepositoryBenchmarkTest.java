@@ -0,0 +1,95 @@
+package com.ticketer.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ticketer.models.Order;
+import com.ticketer.models.OrderItem;
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChange;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class TicketRepositoryBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketRepositoryBenchmarkTest.class);
+
+    private static final int CLOSED_TICKETS = 3000;
+    private static final int OPEN_TICKETS = 40;
+    private static final int LOOKUPS = 2000;
+    private static final RecoveryOptions OPTIONS = new RecoveryOptions("buffered", "json", "file", 0, 1000,
+            Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLargeClosedVolumeAcrossRepositories() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Path fileDir = Files.createDirectories(tempDir.resolve("file"));
+        FileTicketRepository file = new FileTicketRepository(fileDir.resolve("tickets").toString(),
+                fileDir.resolve("recovery.json").toString(), OPTIONS, mapper, Clock.systemUTC());
+        Path jdbcDir = Files.createDirectories(tempDir.resolve("jdbc"));
+        JdbcTicketRepository jdbc = new JdbcTicketRepository("jdbc:h2:file:" + jdbcDir.resolve("tickets-db"),
+                new DailyArchive(jdbcDir.resolve("tickets").toString(), mapper), mapper, Clock.systemUTC());
+
+        long fileTotal = run("file", file);
+        long jdbcTotal = run("jdbc", jdbc);
+        assertEquals(fileTotal, jdbcTotal);
+
+        file.close();
+        jdbc.close();
+    }
+
+    private long run(String name, TicketRepository repository) {
+        long started = System.nanoTime();
+        for (int id = 1; id <= CLOSED_TICKETS + OPEN_TICKETS; id++) {
+            Ticket ticket = new Ticket(id);
+            ticket.setTableNumber("T" + (id % OPEN_TICKETS));
+            ticket.apply(TicketChange.orderAdded(new Order(1000)));
+            ticket.apply(TicketChange.itemAdded(0, OrderItem.forItem(null, "Dish", null, null, 100 + id % 50, 0)));
+            repository.save(ticket);
+            if (id <= CLOSED_TICKETS) {
+                repository.moveToClosed(id);
+            }
+        }
+        long loaded = System.nanoTime() - started;
+
+        Random random = new Random(7);
+        started = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertTrue(repository.findById(1 + random.nextInt(CLOSED_TICKETS)).isPresent());
+        }
+        long lookups = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < 20; i++) {
+            total = repository.closedTotal();
+            assertEquals(CLOSED_TICKETS, repository.findClosedSummaries().size());
+            assertEquals(OPEN_TICKETS, repository.findAllActive().size());
+            assertEquals(1, repository.findOpenByTable("T" + i).size());
+        }
+        long reports = System.nanoTime() - started;
+
+        logger.info("Closed volume [{}]: load {} ms, {} closed lookups in {} ms, 20 report passes in {} ms", name,
+                TimeUnit.NANOSECONDS.toMillis(loaded), LOOKUPS, TimeUnit.NANOSECONDS.toMillis(lookups),
+                TimeUnit.NANOSECONDS.toMillis(reports));
+        return total;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ticketer.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ticketer.dtos.DtoMapper;
+import com.ticketer.dtos.TicketDto;
+import com.ticketer.models.Order;
+import com.ticketer.models.OrderItem;
+import com.ticketer.models.Ticket;
+import com.ticketer.repositories.FileTicketRepository;
+import com.ticketer.repositories.RecoveryOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class ActivePollingAllocationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivePollingAllocationBenchmarkTest.class);
+
+    private static final int TABLES = 40;
+    private static final int ORDERS_PER_TICKET = 4;
+    private static final int ITEMS_PER_ORDER = 6;
+    private static final int POLLS = 2000;
+    private static final RecoveryOptions OPTIONS = new RecoveryOptions("buffered", "json", "file", 0, 1000,
+            Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testActivePollingReadsShareTicketStructure() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        FileTicketRepository repository = new FileTicketRepository(tempDir.toString(),
+                tempDir.resolve("recovery.json").toString(), OPTIONS, mapper, Clock.systemUTC());
+        TicketService service = new TicketService(repository, Clock.systemUTC(), new TicketLocks(64));
+
+        for (int table = 1; table <= TABLES; table++) {
+            Ticket ticket = service.createTicket("T" + table);
+            for (int o = 0; o < ORDERS_PER_TICKET; o++) {
+                service.addOrderToTicket(ticket.getId(), new Order(0));
+                for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                    service.addItemToOrder(ticket.getId(), o,
+                            OrderItem.forItem(null, "Dish" + i, null, null, 1200, 0), null);
+                }
+            }
+        }
+
+        Ticket first = service.getTicket(1);
+        List<Order> before = first.getOrders();
+        Order untouched = before.get(1);
+        assertSame(before, first.getOrders());
+        assertSame(untouched.getItems(), untouched.getItems());
+
+        service.addItemToOrder(1, 0, OrderItem.forItem(null, "Extra", null, null, 500, 0), null);
+        assertEquals(ITEMS_PER_ORDER, before.get(0).getItems().size() - 1);
+        assertSame(untouched, first.getOrders().get(1));
+        assertSame(untouched.getItems(), first.getOrders().get(1).getItems());
+        assertThrows(UnsupportedOperationException.class, () -> first.getOrders().add(new Order(0)));
+
+        long shared = measure(service, this::countShared);
+        long copied = measure(service, this::countCopied);
+        long dtos = measure(service, this::mapActive);
+        logger.info("Active polling allocation: {} B/poll walking shared lists, {} B/poll with defensive copies, "
+                + "{} B/poll mapping to DTOs", shared / POLLS, copied / POLLS, dtos / POLLS);
+        if (shared >= 0) {
+            assertTrue(shared < copied);
+        }
+        repository.close();
+    }
+
+    private long measure(TicketService service, ToIntFunction<List<Ticket>> poll) {
+        int sink = 0;
+        for (int i = 0; i < POLLS; i++) {
+            sink += poll.applyAsInt(service.getActiveTickets());
+        }
+        long start = allocatedBytes();
+        for (int i = 0; i < POLLS; i++) {
+            sink += poll.applyAsInt(service.getActiveTickets());
+        }
+        long end = allocatedBytes();
+        assertTrue(sink > 0);
+        return start < 0 ? -1 : end - start;
+    }
+
+    private int countShared(List<Ticket> tickets) {
+        int items = 0;
+        for (Ticket ticket : tickets) {
+            List<Order> orders = ticket.getOrders();
+            for (int o = 0; o < orders.size(); o++) {
+                items += orders.get(o).getItems().size();
+            }
+        }
+        return items;
+    }
+
+    private int countCopied(List<Ticket> tickets) {
+        int items = 0;
+        for (Ticket ticket : tickets) {
+            List<Order> orders = new ArrayList<>(ticket.getOrders());
+            for (int o = 0; o < orders.size(); o++) {
+                items += new ArrayList<>(orders.get(o).getItems()).size();
+            }
+        }
+        return items;
+    }
+
+    private int mapActive(List<Ticket> tickets) {
+        int items = 0;
+        for (Ticket ticket : tickets) {
+            TicketDto dto = DtoMapper.toTicketDto(ticket);
+            items += dto.orders().size();
+        }
+        return items;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -97,7 +97,7 @@ public class AnalysisServiceTest {
 
         memoryTickets.add(t2);
 
-        when(ticketRepository.findAllClosed()).thenReturn(memoryTickets);
+        when(ticketRepository.findUnarchivedClosed()).thenReturn(memoryTickets);
 
         AnalysisReport report = analysisService.generateReport(
                 LocalDate.of(2023, 1, 1),
@@ -0,0 +1,103 @@
+package com.ticketer.services;
+
+import com.ticketer.dtos.KitchenBoardDto;
+import com.ticketer.dtos.KitchenTicketDto;
+import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class KitchenBoardTest {
+
+    @Mock
+    private TicketService ticketService;
+
+    @Mock
+    private MenuService menuService;
+
+    private final Ticket first = new Ticket(1);
+    private final Ticket second = new Ticket(2);
+    private final List<KitchenBoardDto> pushed = new ArrayList<>();
+    private final List<Runnable> queued = new ArrayList<>();
+    private KitchenBoard board;
+    private Consumer<TicketEvent> events;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(ticketService.getKitchenTickets()).thenReturn(List.of(first));
+        when(ticketService.getTicket(1)).thenReturn(first);
+        when(ticketService.getTicket(2)).thenReturn(second);
+        tally(first, Map.of("Burger", 2.0));
+        tally(second, Map.of("Burger", 1.0, "Fries", 1.0));
+
+        board = new KitchenBoard(ticketService, menuService, queued::add);
+        board.addListener(pushed::add);
+        ArgumentCaptor<Consumer<TicketEvent>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(ticketService).addListener(listener.capture());
+        events = listener.getValue();
+    }
+
+    private void deliver(TicketEvent event) {
+        events.accept(event);
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private void tally(Ticket ticket, Map<String, Double> tally) {
+        when(menuService.getKitchenDetails(ticket))
+                .thenReturn(new KitchenTicketDto(ticket.getId(), null, tally, List.of(), null, null));
+    }
+
+    @Test
+    public void testCountsFollowKitchenQueueIncrementally() {
+        assertEquals(Map.of("Burger", 2.0), board.getBoard().counts());
+
+        events.accept(TicketEvent.of(TicketEvent.Type.KITCHEN_ADDED, second));
+        assertEquals(Map.of("Burger", 2.0), board.getBoard().counts());
+        verify(ticketService, never()).getTicket(2);
+        queued.remove(0).run();
+        assertEquals(Map.of("Burger", 3.0, "Fries", 1.0), board.getBoard().counts());
+        assertEquals(2, board.getBoard().tickets());
+
+        deliver(new TicketEvent(TicketEvent.Type.TICKET_UPDATED, 3, null, 1));
+        assertEquals(1, pushed.size());
+
+        tally(second, Map.of("Fries", 2.0));
+        deliver(TicketEvent.of(TicketEvent.Type.TICKET_UPDATED, second));
+        assertEquals(Map.of("Burger", 2.0, "Fries", 2.0), board.getBoard().counts());
+
+        deliver(TicketEvent.of(TicketEvent.Type.KITCHEN_REMOVED, first));
+        assertEquals(Map.of("Fries", 2.0), board.getBoard().counts());
+        assertEquals(3, pushed.size());
+        assertEquals(board.getBoard(), pushed.get(2));
+        verify(ticketService, times(1)).getKitchenTickets();
+    }
+
+    @Test
+    public void testMenuChangeAndResetRebuildFromQueue() {
+        when(menuService.menuVersion()).thenReturn(1L);
+        tally(first, Map.of("Patty", 2.0));
+        assertEquals(Map.of("Patty", 2.0), board.getBoard().counts());
+        assertEquals(1, pushed.size());
+
+        when(ticketService.getKitchenTickets()).thenReturn(List.of());
+        deliver(TicketEvent.reset());
+        assertTrue(board.getBoard().counts().isEmpty());
+        assertEquals(0, board.getBoard().tickets());
+        assertEquals(2, pushed.size());
+    }
+}
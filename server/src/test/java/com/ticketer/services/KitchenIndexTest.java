@@ -0,0 +1,67 @@
+package com.ticketer.services;
+
+import com.ticketer.models.BaseItem;
+import com.ticketer.models.CompositeComponent;
+import com.ticketer.models.Menu;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenIndexTest {
+
+    @Test
+    public void testFlattensNestedRecipesWithMultipliers() {
+        UUID patty = UUID.randomUUID();
+        UUID bun = UUID.randomUUID();
+        UUID burger = UUID.randomUUID();
+        UUID platter = UUID.randomUUID();
+        UUID soda = UUID.randomUUID();
+        Map<UUID, BaseItem> baseItems = new LinkedHashMap<>();
+        baseItems.put(patty, new BaseItem(patty, "Patty", 0, true, false));
+        baseItems.put(bun, new BaseItem(bun, "Bun", 0, true, false));
+        baseItems.put(burger, new BaseItem(burger, "Burger", 0, true, true,
+                List.of(new CompositeComponent(patty, 2.0), new CompositeComponent(bun, 1.0))));
+        baseItems.put(platter, new BaseItem(platter, "Platter", 0, true, true,
+                List.of(new CompositeComponent(burger, 3.0), new CompositeComponent(patty, 1.0))));
+        baseItems.put(soda, new BaseItem(soda, "Soda", 0, true, false));
+        KitchenIndex index = KitchenIndex.build(
+                new Menu(baseItems, new LinkedHashMap<>(), new LinkedHashMap<>(), new ArrayList<>()));
+
+        Map<String, Double> tally = new LinkedHashMap<>();
+        index.addToTally(tally, platter, "Platter");
+        index.addToTally(tally, burger, "Burger");
+        index.addToTally(tally, soda, "Soda");
+        index.addToTally(tally, UUID.randomUUID(), "Unknown");
+
+        assertEquals(List.of("Patty", "Bun"), new ArrayList<>(tally.keySet()));
+        assertEquals(9.0, tally.get("Patty"), 0.001);
+        assertEquals(4.0, tally.get("Bun"), 0.001);
+        assertTrue(index.isKitchen(burger));
+        assertFalse(index.isKitchen(soda));
+        assertFalse(index.isKitchen(null));
+    }
+
+    @Test
+    public void testCyclicRecipesTerminate() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID leaf = UUID.randomUUID();
+        Map<UUID, BaseItem> baseItems = new LinkedHashMap<>();
+        baseItems.put(a, new BaseItem(a, "A", 0, true, true,
+                List.of(new CompositeComponent(b, 1.0), new CompositeComponent(leaf, 1.0))));
+        baseItems.put(b, new BaseItem(b, "B", 0, true, true, List.of(new CompositeComponent(a, 1.0))));
+        baseItems.put(leaf, new BaseItem(leaf, "Leaf", 0, true, true));
+        KitchenIndex index = KitchenIndex.build(
+                new Menu(baseItems, new LinkedHashMap<>(), new LinkedHashMap<>(), new ArrayList<>()));
+
+        Map<String, Double> tally = new LinkedHashMap<>();
+        index.addToTally(tally, a, "A");
+        assertEquals(Map.of("Leaf", 1.0), tally);
+    }
+}
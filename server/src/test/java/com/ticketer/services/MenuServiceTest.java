@@ -198,6 +198,37 @@ public class MenuServiceTest {
         assertNull(dto.kitchenTally().get("B"));
     }
 
+    @Test
+    public void testKitchenDetailsCachedUntilTicketOrMenuChanges() {
+        Menu menu = buildMenuWithItem("entrees", "Burger", 100, true);
+        UUID id = menu.getBaseItems().keySet().iterator().next();
+        when(menuRepository.getMenu()).thenReturn(menu);
+        menuService = new MenuService(menuRepository);
+
+        com.ticketer.models.Ticket ticket = new com.ticketer.models.Ticket(1);
+        ticket.apply(com.ticketer.models.TicketChange.orderAdded(new com.ticketer.models.Order()));
+        ticket.apply(com.ticketer.models.TicketChange.itemAdded(0,
+                com.ticketer.models.OrderItem.forItem(id, "Burger", null, null, 100, 0)));
+
+        com.ticketer.dtos.KitchenTicketDto first = menuService.getKitchenDetails(ticket);
+        assertSame(first, menuService.getKitchenDetails(ticket));
+        assertEquals(List.of(first), menuService.getKitchenDetails(List.of(ticket)));
+
+        ticket.apply(com.ticketer.models.TicketChange.ticketComment("no onions"));
+        com.ticketer.dtos.KitchenTicketDto commented = menuService.getKitchenDetails(ticket);
+        assertNotSame(first, commented);
+        assertEquals("no onions", commented.comment());
+
+        menuService.updateBaseItemKitchen(id, false);
+        com.ticketer.dtos.KitchenTicketDto afterMenuChange = menuService.getKitchenDetails(ticket);
+        assertNotSame(commented, afterMenuChange);
+        assertTrue(afterMenuChange.kitchenTally().isEmpty());
+
+        com.ticketer.models.Ticket reissued = new com.ticketer.models.Ticket(1);
+        reissued.setCreatedAt(ticket.getCreatedAt().plusSeconds(86400));
+        assertNotSame(afterMenuChange, menuService.getKitchenDetails(reissued));
+    }
+
     @Test
     public void testRenameBaseItem() {
         Menu menu = buildMenuWithItem("entrees", "Burger", 100, false);
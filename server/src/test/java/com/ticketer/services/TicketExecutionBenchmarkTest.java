@@ -0,0 +1,127 @@
+package com.ticketer.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ticketer.models.Order;
+import com.ticketer.models.OrderItem;
+import com.ticketer.models.Ticket;
+import com.ticketer.repositories.FileTicketRepository;
+import com.ticketer.repositories.RecoveryOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+public class TicketExecutionBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketExecutionBenchmarkTest.class);
+
+    private static final int TABLES = 40;
+    private static final int SERVERS = 16;
+    private static final int COMMANDS_PER_SERVER = 400;
+    private static final RecoveryOptions OPTIONS = new RecoveryOptions("batch", "json", "file", 0, 1000,
+            Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDinnerRushAcrossExecutionModes() throws Exception {
+        Map<String, Supplier<TicketExecutor>> modes = new LinkedHashMap<>();
+        modes.put("global monitor", () -> new TicketLocks(1));
+        modes.put("striped locks", () -> new TicketLocks(64));
+        modes.put("mailboxes", TicketMailboxes::new);
+
+        for (Map.Entry<String, Supplier<TicketExecutor>> mode : modes.entrySet()) {
+            runDinnerRush(mode.getKey(), mode.getValue().get());
+        }
+    }
+
+    private void runDinnerRush(String name, TicketExecutor ticketExecutor) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Path dir = Files.createDirectories(tempDir.resolve(name.replace(' ', '-')));
+        FileTicketRepository repository = new FileTicketRepository(dir.toString(),
+                dir.resolve("recovery.json").toString(), OPTIONS, mapper, Clock.systemUTC());
+        TicketService service = new TicketService(repository, Clock.systemUTC(), ticketExecutor);
+
+        for (int table = 1; table <= TABLES; table++) {
+            Ticket ticket = service.createTicket("T" + table);
+            service.addOrderToTicket(ticket.getId(), new Order(0));
+            service.addItemToOrder(ticket.getId(), 0, OrderItem.forItem(null, "Water", null, null, 0, 0), null);
+        }
+
+        ExecutorService servers = Executors.newFixedThreadPool(SERVERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int s = 0; s < SERVERS; s++) {
+            final long seed = s;
+            results.add(servers.submit(() -> {
+                Random random = new Random(seed);
+                int itemsAdded = 0;
+                start.await();
+                for (int i = 0; i < COMMANDS_PER_SERVER; i++) {
+                    int ticketId = 1 + random.nextInt(TABLES);
+                    int roll = random.nextInt(10);
+                    if (roll < 5) {
+                        service.addItemToOrder(ticketId, 0,
+                                OrderItem.forItem(null, "Dish" + roll, null, null, 1200, 0), null);
+                        itemsAdded++;
+                    } else if (roll < 7) {
+                        service.updateItemComment(ticketId, 0, 0, "no ice " + i);
+                    } else if (roll < 9) {
+                        service.updateTicketComment(ticketId, "server " + seed);
+                    } else {
+                        service.addOrderToTicket(ticketId, new Order(0));
+                    }
+                }
+                return itemsAdded;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        int itemsAdded = 0;
+        for (Future<Integer> result : results) {
+            itemsAdded += result.get(120, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        servers.shutdown();
+
+        for (int table = 1; table <= TABLES; table++) {
+            service.moveToClosed(table);
+        }
+
+        int items = service.getClosedTickets().stream()
+                .mapToInt(t -> t.getOrders().stream().mapToInt(o -> o.getItems().size()).sum())
+                .sum();
+        assertEquals(TABLES + itemsAdded, items);
+        assertEquals(TABLES, service.getClosedTickets().size());
+
+        int commands = SERVERS * COMMANDS_PER_SERVER;
+        logger.info("Dinner rush [{}]: {} commands in {} ms ({} commands/s)", name, commands,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), commands * 1_000_000_000L / Math.max(1, elapsedNanos));
+        repository.close();
+    }
+}
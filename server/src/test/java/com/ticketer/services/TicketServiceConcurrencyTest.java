@@ -0,0 +1,266 @@
+package com.ticketer.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ticketer.exceptions.EntityNotFoundException;
+import com.ticketer.models.Order;
+import com.ticketer.models.OrderItem;
+import com.ticketer.models.Ticket;
+import com.ticketer.repositories.FileTicketRepository;
+import com.ticketer.repositories.RecoveryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TicketServiceConcurrencyTest {
+
+    private static final RecoveryOptions OPTIONS = new RecoveryOptions("buffered", "json", "file", 0, 1000,
+            Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    @TempDir
+    Path tempDir;
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private FileTicketRepository repository() {
+        return new FileTicketRepository(tempDir.toString(), tempDir.resolve("recovery.json").toString(), OPTIONS,
+                mapper, Clock.systemUTC());
+    }
+
+    @Test
+    public void testSameTicketEditsAreLinearizable() throws Exception {
+        assertSameTicketEditsAreLinearizable(new TicketLocks(64));
+    }
+
+    @Test
+    public void testSameTicketEditsAreLinearizableInMailboxMode() throws Exception {
+        assertSameTicketEditsAreLinearizable(new TicketMailboxes());
+    }
+
+    @Test
+    public void testUnrelatedTicketsDoNotWaitForEachOther() throws Exception {
+        assertUnrelatedTicketsDoNotWaitForEachOther(new TicketLocks(64));
+    }
+
+    @Test
+    public void testUnrelatedTicketsDoNotWaitForEachOtherInMailboxMode() throws Exception {
+        assertUnrelatedTicketsDoNotWaitForEachOther(new TicketMailboxes());
+    }
+
+    @Test
+    public void testIdleMailboxesAreReleased() throws Exception {
+        TicketMailboxes mailboxes = new TicketMailboxes();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final int ticketId = i % 50;
+            tasks.add(executor.submit(() -> mailboxes.execute(ticketId, () -> mailboxes.execute(ticketId, () -> null))));
+        }
+        for (Future<?> task : tasks) {
+            task.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(0, mailboxes.size());
+    }
+
+    @Test
+    public void testRollOverWaitsForInFlightMutations() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean blockOnce = new AtomicBoolean();
+        FileTicketRepository repository = new FileTicketRepository(tempDir.toString(),
+                tempDir.resolve("recovery.json").toString(), OPTIONS, mapper, Clock.systemUTC()) {
+            @Override
+            public Optional<Ticket> findById(int id) {
+                if (blockOnce.compareAndSet(true, false)) {
+                    inside.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findById(id);
+            }
+        };
+        TicketService service = new TicketService(repository, Clock.systemUTC(), new TicketMailboxes());
+        service.createTicket("T1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        blockOnce.set(true);
+        Future<?> edit = executor.submit(() -> service.updateTicketComment(1, "late"));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+        Future<?> rollOver = executor.submit(() -> service.rollOver(LocalDate.now().plusDays(1)));
+        assertThrows(TimeoutException.class, () -> rollOver.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        edit.get(5, TimeUnit.SECONDS);
+        rollOver.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertTrue(repository.findById(1).isEmpty());
+        repository.close();
+        assertTrue(repository().findById(1).isEmpty());
+    }
+
+    @Test
+    public void testDiscardWaitsForInFlightEditAndDoesNotResurrect() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean blockOnce = new AtomicBoolean();
+        FileTicketRepository repository = new FileTicketRepository(tempDir.toString(),
+                tempDir.resolve("recovery.json").toString(), OPTIONS, mapper, Clock.systemUTC()) {
+            @Override
+            public Optional<Ticket> findById(int id) {
+                if (blockOnce.compareAndSet(true, false)) {
+                    inside.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findById(id);
+            }
+        };
+        TicketService service = new TicketService(repository, Clock.systemUTC(), new TicketMailboxes());
+        service.createTicket("T1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        blockOnce.set(true);
+        Future<?> edit = executor.submit(() -> service.updateTicketComment(1, "late"));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+        Future<?> discard = executor.submit(service::discardActiveTickets);
+        assertThrows(TimeoutException.class, () -> discard.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        edit.get(5, TimeUnit.SECONDS);
+        discard.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertTrue(repository.findById(1).isEmpty());
+        repository.close();
+        assertTrue(repository().findById(1).isEmpty());
+    }
+
+    private void assertSameTicketEditsAreLinearizable(TicketExecutor ticketExecutor) throws Exception {
+        FileTicketRepository repository = repository();
+        TicketService service = new TicketService(repository, Clock.systemUTC(), ticketExecutor);
+        Ticket ticket = service.createTicket("T1");
+        Order order = new Order(0);
+        order.addItem(OrderItem.forItem(null, "Seed", null, null, 100, 0));
+        service.addOrderToTicket(ticket.getId(), order);
+
+        int threads = 8;
+        int opsPerThread = 300;
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            tasks.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    if (random.nextBoolean()) {
+                        service.addItemToOrder(ticket.getId(), 0,
+                                OrderItem.forItem(null, "I" + thread + "-" + i, null, null, 100, 0), null);
+                        added.incrementAndGet();
+                    } else {
+                        int size = ticket.getOrders().get(0).getItems().size();
+                        try {
+                            service.removeItemFromOrderByIndex(ticket.getId(), 0, Math.max(0, size - 1));
+                            removed.incrementAndGet();
+                        } catch (EntityNotFoundException e) {
+                            // the index went stale before the lock was taken; the service rejected it cleanly
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<String> live = ticket.getOrders().get(0).getItems().stream().map(OrderItem::getName).toList();
+        assertEquals(1 + added.get() - removed.get(), live.size());
+        assertEquals(1 + added.get() + removed.get(), ticket.getRevision());
+        repository.close();
+
+        FileTicketRepository restarted = repository();
+        Ticket replayed = restarted.findById(ticket.getId()).orElseThrow();
+        assertEquals(live, replayed.getOrders().get(0).getItems().stream().map(OrderItem::getName).toList());
+        restarted.close();
+    }
+
+    private void assertUnrelatedTicketsDoNotWaitForEachOther(TicketExecutor ticketExecutor) throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean blockOnce = new AtomicBoolean();
+        FileTicketRepository repository = new FileTicketRepository(tempDir.toString(),
+                tempDir.resolve("recovery.json").toString(), OPTIONS, mapper, Clock.systemUTC()) {
+            @Override
+            public Optional<Ticket> findById(int id) {
+                if (id == 1 && blockOnce.compareAndSet(true, false)) {
+                    inside.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findById(id);
+            }
+        };
+        TicketService service = new TicketService(repository, Clock.systemUTC(), ticketExecutor);
+        service.createTicket("T1");
+        service.createTicket("T2");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        blockOnce.set(true);
+        Future<?> slow = executor.submit(() -> service.updateTicketComment(1, "first"));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        Future<?> sameTicket = executor.submit(() -> service.updateTicketComment(1, "second"));
+        Future<?> otherTicket = executor.submit(() -> service.updateTicketComment(2, "other"));
+        otherTicket.get(5, TimeUnit.SECONDS);
+        assertEquals("other", service.getTicket(2).getComment());
+        assertThrows(TimeoutException.class, () -> sameTicket.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        sameTicket.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals("second", service.getTicket(1).getComment());
+        repository.close();
+    }
+}
@@ -3,10 +3,15 @@ package com.ticketer.services;
 import com.ticketer.models.Order;
 import com.ticketer.models.OrderItem;
 import com.ticketer.models.Ticket;
+import com.ticketer.models.TicketChange;
+import com.ticketer.models.TicketEvent;
+import com.ticketer.models.TicketStatus;
+import com.ticketer.models.TicketSummary;
 import com.ticketer.repositories.TicketRepository;
 import com.ticketer.exceptions.EntityNotFoundException;
 import com.ticketer.exceptions.ActionNotAllowedException;
 import com.ticketer.exceptions.InvalidInputException;
+import com.ticketer.exceptions.PreconditionFailedException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -104,6 +109,49 @@ public class TicketServiceTest {
         verify(ticketRepository).moveToActive(1);
     }
 
+    @Test
+    public void testBulkCloseAppliesStatusChangeToCurrentTicket() {
+        List<TicketEvent> events = new java.util.ArrayList<>();
+        ticketService.addListener(events::add);
+        Ticket listed = new Ticket(1);
+        Ticket current = new Ticket(1);
+        current.setStatus(TicketStatus.COMPLETED);
+        current.setRevision(4);
+        when(ticketRepository.findAllCompleted()).thenReturn(List.of(listed));
+        when(ticketRepository.findById(1)).thenReturn(Optional.of(current));
+
+        ticketService.moveCompletedToClosed();
+
+        verify(ticketRepository).moveToClosed(1);
+        assertEquals(TicketStatus.CLOSED, current.getStatus());
+        assertEquals(5, current.getRevision());
+        assertEquals(List.of(new TicketEvent(TicketEvent.Type.TICKET_MOVED, 1, TicketStatus.CLOSED, 5)), events);
+    }
+
+    @Test
+    public void testMutationsPublishTicketEvents() {
+        List<TicketEvent> events = new java.util.ArrayList<>();
+        ticketService.addListener(events::add);
+        Ticket t1 = new Ticket(1);
+        when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
+
+        ticketService.addOrderToTicket(1, new Order(0));
+        ticketService.sendToKitchen(1);
+        ticketService.moveToCompleted(1);
+        ticketService.addItemToOrder(1, 0, OrderItem.forItem(null, "Burger", null, null, 1000, 0), null);
+        ticketService.completeKitchenTicket(1);
+
+        assertEquals(List.of(TicketEvent.Type.TICKET_UPDATED, TicketEvent.Type.KITCHEN_ADDED,
+                TicketEvent.Type.TICKET_MOVED, TicketEvent.Type.TICKET_MOVED, TicketEvent.Type.TICKET_UPDATED,
+                TicketEvent.Type.KITCHEN_REMOVED, TicketEvent.Type.TICKET_MOVED),
+                events.stream().map(TicketEvent::type).toList());
+        assertEquals(TicketStatus.COMPLETED, events.get(6).status());
+        assertEquals(TicketStatus.COMPLETED, events.get(2).status());
+        assertEquals(TicketStatus.ACTIVE, events.get(3).status());
+        assertEquals(t1.getRevision(), events.get(6).revision());
+        assertEquals(events.get(4).revision() + 1, events.get(6).revision());
+    }
+
     @Test
     public void testRemoveTicket() {
         Ticket t1 = new Ticket(1);
@@ -143,8 +191,8 @@ public class TicketServiceTest {
     @Test
     void testAddOrderToClosedTicket() {
         Ticket t1 = new Ticket(1);
+        t1.setStatus(TicketStatus.CLOSED);
 
-        when(ticketRepository.findAllClosed()).thenReturn(Arrays.asList(t1));
         when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
 
         assertThrows(ActionNotAllowedException.class, () -> ticketService.addOrderToTicket(1, new Order(1000)));
@@ -154,6 +202,7 @@ public class TicketServiceTest {
     void testMoveClosedToCompletedShouldFail() {
         Ticket t1 = new Ticket(1);
         t1.setClosedAt(Instant.now());
+        t1.setStatus(TicketStatus.CLOSED);
         when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
 
         assertThrows(ActionNotAllowedException.class, () -> ticketService.moveToCompleted(1));
@@ -163,6 +212,7 @@ public class TicketServiceTest {
     void testMoveClosedToActiveShouldFail() {
         Ticket t1 = new Ticket(1);
         t1.setClosedAt(Instant.now());
+        t1.setStatus(TicketStatus.CLOSED);
         when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
 
         assertThrows(ActionNotAllowedException.class, () -> ticketService.moveToActive(1));
@@ -204,7 +254,10 @@ public class TicketServiceTest {
         o2.addItem(OrderItem.forItem(null, "Pizza", null, "None", 2000, 0));
         t2.addOrder(o2);
 
-        when(ticketRepository.findAllClosed()).thenReturn(Arrays.asList(t1, t2));
+        when(ticketRepository.findClosedSummaries())
+                .thenReturn(Arrays.asList(TicketSummary.of(t1), TicketSummary.of(t2)));
+
+        when(ticketRepository.closedSubtotal()).thenCallRealMethod();
 
         long subtotal = ticketService.getClosedTicketsSubtotal();
         assertEquals(3000, subtotal);
@@ -222,7 +275,10 @@ public class TicketServiceTest {
         o2.addItem(OrderItem.forItem(null, "Pizza", null, "None", 2000, 0));
         t2.addOrder(o2);
 
-        when(ticketRepository.findAllClosed()).thenReturn(Arrays.asList(t1, t2));
+        when(ticketRepository.findClosedSummaries())
+                .thenReturn(Arrays.asList(TicketSummary.of(t1), TicketSummary.of(t2)));
+
+        when(ticketRepository.closedTotal()).thenCallRealMethod();
 
         long total = ticketService.getClosedTicketsTotal();
         assertEquals(3500, total);
@@ -243,6 +299,8 @@ public class TicketServiceTest {
         when(ticketRepository.findAllActive()).thenReturn(Arrays.asList(t1));
         when(ticketRepository.findAllCompleted()).thenReturn(Arrays.asList(t2));
 
+        when(ticketRepository.activeAndCompletedSubtotal()).thenCallRealMethod();
+
         long subtotal = ticketService.getActiveAndCompletedTicketsSubtotal();
         assertEquals(3000, subtotal);
     }
@@ -262,6 +320,8 @@ public class TicketServiceTest {
         when(ticketRepository.findAllActive()).thenReturn(Arrays.asList(t1));
         when(ticketRepository.findAllCompleted()).thenReturn(Arrays.asList(t2));
 
+        when(ticketRepository.activeAndCompletedTotal()).thenCallRealMethod();
+
         long total = ticketService.getActiveAndCompletedTicketsTotal();
         assertEquals(3500, total);
     }
@@ -372,4 +432,84 @@ public class TicketServiceTest {
         assertThrows(InvalidInputException.class,
             () -> ticketService.mergeOrders(1, 0, 0));
     }
+
+    @Test
+    public void testExecuteIfMatchRunsCommandOnlyWhenPreconditionHolds() {
+        Ticket t1 = new Ticket(1);
+        when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
+        when(ticketRepository.findById(2)).thenReturn(Optional.empty());
+
+        assertEquals("ran", ticketService.executeIfMatch(1, t -> t.getRevision() == 0, () -> "ran"));
+        assertThrows(PreconditionFailedException.class,
+                () -> ticketService.executeIfMatch(1, t -> t.getRevision() == 5, () -> fail("stale command ran")));
+        assertThrows(EntityNotFoundException.class,
+                () -> ticketService.executeIfMatch(2, t -> true, () -> "ran"));
+    }
+
+    @Test
+    public void testApplyBatchSavesOnce() {
+        Ticket t1 = new Ticket(1);
+        t1.addOrder(new Order(0));
+        when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
+
+        ticketService.applyBatch(1, List.of(
+                TicketChange.itemAdded(0, OrderItem.forItem(null, "Burger", null, null, 1000, 0)),
+                TicketChange.itemAdded(0, OrderItem.forItem(null, "Fries", null, null, 400, 0)),
+                TicketChange.orderAdded(new Order(0)),
+                TicketChange.itemMoved(0, 1, 1),
+                TicketChange.itemComment(1, 0, "extra salt"),
+                TicketChange.ticketComment("party of 12")));
+
+        assertEquals(6, t1.getRevision());
+        assertEquals(List.of("Burger"), t1.getOrders().get(0).getItems().stream().map(OrderItem::getName).toList());
+        assertEquals("extra salt", t1.getOrders().get(1).getItems().get(0).getComment());
+        assertEquals("party of 12", t1.getComment());
+        verify(ticketRepository, times(1)).save(t1);
+    }
+
+    @Test
+    public void testApplyBatchIsAllOrNothing() {
+        Ticket t1 = new Ticket(1);
+        Order order = new Order(0);
+        order.addItem(OrderItem.forItem(null, "Burger", null, null, 1000, 0));
+        t1.addOrder(order);
+        t1.addOrder(new Order(0));
+        when(ticketRepository.findById(1)).thenReturn(Optional.of(t1));
+
+        assertThrows(EntityNotFoundException.class, () -> ticketService.applyBatch(1, List.of(
+                TicketChange.ordersMerged(0, 1),
+                TicketChange.itemRemoved(1, 0))));
+
+        assertEquals(0, t1.getRevision());
+        assertEquals(2, t1.getOrders().size());
+        assertEquals(1, t1.getOrders().get(0).getItems().size());
+        assertThrows(InvalidInputException.class,
+                () -> ticketService.applyBatch(1, List.of(TicketChange.priceChanged(0, 0, 1))));
+        verify(ticketRepository, never()).save(any());
+    }
+
+    @Test
+    public void testCreateTicketRollsOverOnNewDay() {
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        assertEquals(1, ticketService.createTicket("Table 1").getId());
+        assertEquals(2, ticketService.createTicket("Table 2").getId());
+        verify(ticketRepository, never()).rollOver(any());
+
+        when(clock.instant()).thenReturn(Instant.parse("2023-01-02T00:00:05Z"));
+        assertEquals(1, ticketService.createTicket("Table 3").getId());
+        verify(ticketRepository).rollOver(java.time.LocalDate.parse("2023-01-01"));
+        ticketService.close();
+    }
+
+    @Test
+    public void testTicketCounterResumesFromRepositorySequence() {
+        when(ticketRepository.lastTicketId()).thenReturn(7);
+        when(ticketRepository.lastTicketCreatedAt()).thenReturn(Optional.of(Instant.parse("2023-01-01T09:00:00Z")));
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TicketService resumed = new TicketService(ticketRepository, clock);
+        assertEquals(8, resumed.createTicket("Table 8").getId());
+        verify(ticketRepository, never()).rollOver(any());
+        resumed.close();
+    }
 }